@@ -20,4 +20,10 @@ public interface CategoryService {
     void deleteById(Long catId);
 
     Category getCategoryById(Long catId);
+
+    /**
+     * Returns a lazy reference for an id already checked with {@link #getById}, so that linking
+     * the category to an event costs no select. Reading other fields of the reference loads it.
+     */
+    Category getCategoryReference(Long catId);
 }
@@ -2,6 +2,11 @@ package ru.practicum.main_service.category.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -9,6 +14,7 @@ import ru.practicum.main_service.category.dto.CategoryDto;
 import ru.practicum.main_service.category.dto.NewCategoryDto;
 import ru.practicum.main_service.category.mapper.CategoryMapper;
 import ru.practicum.main_service.category.model.Category;
+import ru.practicum.main_service.category.model.CategoryChangedEvent;
 import ru.practicum.main_service.category.repository.CategoryRepository;
 import ru.practicum.main_service.exception.NotFoundException;
 
@@ -19,9 +25,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 @Slf4j
+@CacheConfig(cacheNames = "categories")
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -39,6 +47,7 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Cacheable(key = "#catId")
     public CategoryDto getById(Long catId) {
 
         Category category = categoryRepository.findById(catId)
@@ -49,23 +58,27 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     @Transactional
+    @CachePut(key = "#catId")
     public CategoryDto patch(Long catId, CategoryDto categoryDto) {
 
         categoryRepository.findById(catId)
                 .orElseThrow(() -> new NotFoundException("No category with such id " + catId));
 
         categoryDto.setId(catId);
+        eventPublisher.publishEvent(new CategoryChangedEvent(catId));
         return categoryMapper.toCategoryDto(categoryRepository.save(categoryMapper.categoryDtoToCategory(categoryDto)));
     }
 
     @Override
     @Transactional
+    @CacheEvict(key = "#catId")
     public void deleteById(Long catId) {
 
         categoryRepository.findById(catId)
                 .orElseThrow(() -> new NotFoundException("No category with such id " + catId));
 
         categoryRepository.deleteById(catId);
+        eventPublisher.publishEvent(new CategoryChangedEvent(catId));
     }
 
     @Override
@@ -74,4 +87,10 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryRepository.findById(catId)
                 .orElseThrow(() -> new NotFoundException("No category with such id " + catId));
     }
+
+    @Override
+    public Category getCategoryReference(Long catId) {
+
+        return categoryRepository.getReferenceById(catId);
+    }
 }
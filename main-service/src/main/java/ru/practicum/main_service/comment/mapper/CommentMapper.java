@@ -4,10 +4,16 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.main_service.comment.dto.CommentDto;
 import ru.practicum.main_service.comment.model.Comment;
+import ru.practicum.main_service.user.dto.UserShortDto;
 import ru.practicum.main_service.user.mapper.UserMapper;
 
 @Mapper(componentModel = "spring", uses = {UserMapper.class})
 public interface CommentMapper {
     @Mapping(target = "eventId", expression = "java(comment.getEvent().getId())")
     CommentDto toCommentDto(Comment comment);
+
+    @Mapping(target = "id", source = "comment.id")
+    @Mapping(target = "author", source = "author")
+    @Mapping(target = "eventId", expression = "java(comment.getEvent().getId())")
+    CommentDto toCommentDto(Comment comment, UserShortDto author);
 }
@@ -15,7 +15,8 @@ import ru.practicum.main_service.event.model.Event;
 import ru.practicum.main_service.event.service.EventService;
 import ru.practicum.main_service.exception.ForbiddenException;
 import ru.practicum.main_service.exception.NotFoundException;
-import ru.practicum.main_service.user.model.User;
+import ru.practicum.main_service.user.dto.UserDto;
+import ru.practicum.main_service.user.mapper.UserMapper;
 import ru.practicum.main_service.user.service.UserService;
 
 import java.time.LocalDateTime;
@@ -32,6 +33,7 @@ public class CommentServiceImpl implements CommentService {
     private final EventService eventService;
     private final CommentRepository commentRepository;
     private final CommentMapper commentMapper;
+    private final UserMapper userMapper;
 
     @Override
     public List<CommentDto> getCommentsByAdmin(Pageable pageable) {
@@ -46,7 +48,7 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     public List<CommentDto> getCommentsByPrivate(Long userId, Long eventId, Pageable pageable) {
-        userService.getUserById(userId);
+        userService.getById(userId);
 
         List<Comment> comments;
         if (eventId != null) {
@@ -63,7 +65,7 @@ public class CommentServiceImpl implements CommentService {
     @Override
     @Transactional
     public CommentDto createByPrivate(Long userId, Long eventId, NewCommentDto newCommentDto) {
-        User user = userService.getUserById(userId);
+        UserDto user = userService.getById(userId);
         Event event = eventService.getEventById(eventId);
 
         if (!event.getState().equals(EventState.PUBLISHED)) {
@@ -72,18 +74,18 @@ public class CommentServiceImpl implements CommentService {
 
         Comment comment = Comment.builder()
                 .text(newCommentDto.getText())
-                .author(user)
+                .author(userService.getUserReference(userId))
                 .event(event)
                 .createdOn(LocalDateTime.now())
                 .build();
 
-        return commentMapper.toCommentDto(commentRepository.save(comment));
+        return commentMapper.toCommentDto(commentRepository.save(comment), userMapper.toUserShortDto(user));
     }
 
     @Override
     @Transactional
     public CommentDto patchByPrivate(Long userId, Long commentId, NewCommentDto newCommentDto) {
-        userService.getUserById(userId);
+        userService.getById(userId);
 
         Comment commentFromRepository = getCommentById(commentId);
 
@@ -98,7 +100,7 @@ public class CommentServiceImpl implements CommentService {
     @Override
     @Transactional
     public void deleteByPrivate(Long userId, Long commentId) {
-        userService.getUserById(userId);
+        userService.getById(userId);
 
         checkUserIsOwner(userId, getCommentById(commentId).getAuthor().getId());
 
@@ -0,0 +1,11 @@
+package ru.practicum.main_service.compilation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CompilationEventId {
+    private Long compilationId;
+    private Long eventId;
+}
@@ -0,0 +1,10 @@
+package ru.practicum.main_service.compilation.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class CompilationChangedEvent {
+    private final Long compilationId;
+}
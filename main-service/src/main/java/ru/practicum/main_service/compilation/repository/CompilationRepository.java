@@ -2,10 +2,19 @@ package ru.practicum.main_service.compilation.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.main_service.compilation.dto.CompilationEventId;
 import ru.practicum.main_service.compilation.model.Compilation;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
     List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+
+    @Query("SELECT new ru.practicum.main_service.compilation.dto.CompilationEventId(c.id, e.id) " +
+            "FROM Compilation AS c " +
+            "JOIN c.events AS e " +
+            "WHERE c.id IN ?1")
+    List<CompilationEventId> findEventIdsByCompilationIdIn(Collection<Long> compIds);
 }
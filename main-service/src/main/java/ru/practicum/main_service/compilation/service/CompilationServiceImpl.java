@@ -2,6 +2,7 @@ package ru.practicum.main_service.compilation.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,18 +11,14 @@ import ru.practicum.main_service.compilation.dto.NewCompilationDto;
 import ru.practicum.main_service.compilation.dto.UpdateCompilationRequest;
 import ru.practicum.main_service.compilation.mapper.CompilationMapper;
 import ru.practicum.main_service.compilation.model.Compilation;
+import ru.practicum.main_service.compilation.model.CompilationChangedEvent;
 import ru.practicum.main_service.compilation.repository.CompilationRepository;
-import ru.practicum.main_service.event.dto.EventShortDto;
 import ru.practicum.main_service.event.model.Event;
 import ru.practicum.main_service.event.service.EventService;
 import ru.practicum.main_service.exception.NotFoundException;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -31,6 +28,8 @@ public class CompilationServiceImpl implements CompilationService {
     private final EventService eventService;
     private final CompilationRepository compilationRepository;
     private final CompilationMapper compilationMapper;
+    private final CompilationViewStore compilationViewStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -44,8 +43,9 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         Compilation compilation = compilationRepository.save(compilationMapper.newDtoToCompilation(newCompilationDto, events));
+        eventPublisher.publishEvent(new CompilationChangedEvent(compilation.getId()));
 
-        return getById(compilation.getId());
+        return buildById(compilation.getId());
     }
 
     @Override
@@ -70,8 +70,9 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         compilationRepository.save(compilation);
+        eventPublisher.publishEvent(new CompilationChangedEvent(compId));
 
-        return getById(compId);
+        return buildById(compId);
     }
 
     @Override
@@ -80,10 +81,15 @@ public class CompilationServiceImpl implements CompilationService {
         getCompilationById(compId);
 
         compilationRepository.deleteById(compId);
+        eventPublisher.publishEvent(new CompilationChangedEvent(compId));
     }
 
     @Override
     public List<CompilationDto> getAll(Boolean pinned, Pageable pageable) {
+        if (compilationViewStore.isEnabled()) {
+            return compilationViewStore.getAll(pinned, pageable);
+        }
+
         List<Compilation> compilations;
 
         if (pinned == null) {
@@ -92,31 +98,20 @@ public class CompilationServiceImpl implements CompilationService {
             compilations = compilationRepository.findAllByPinned(pinned, pageable);
         }
 
-        Set<Event> uniqueEvents = new HashSet<>();
-        compilations.forEach(compilation -> uniqueEvents.addAll(compilation.getEvents()));
-
-        Map<Long, EventShortDto> eventsShortDto = new HashMap<>();
-        eventService.toEventsShortDto(new ArrayList<>(uniqueEvents))
-                .forEach(event -> eventsShortDto.put(event.getId(), event));
-
-        List<CompilationDto> result = new ArrayList<>();
-        compilations.forEach(compilation -> {
-            List<EventShortDto> compEventsShortDto = new ArrayList<>();
-            compilation.getEvents()
-                    .forEach(event -> compEventsShortDto.add(eventsShortDto.get(event.getId())));
-            result.add(compilationMapper.toCompilationDto(compilation, compEventsShortDto));
-        });
-
-        return result;
+        return compilationViewStore.build(compilations);
     }
 
     @Override
     public CompilationDto getById(Long compId) {
-        Compilation compilation = getCompilationById(compId);
+        if (compilationViewStore.isEnabled()) {
+            return compilationViewStore.getById(compId);
+        }
 
-        List<EventShortDto> eventsShortDto = eventService.toEventsShortDto(compilation.getEvents());
+        return buildById(compId);
+    }
 
-        return compilationMapper.toCompilationDto(compilation, eventsShortDto);
+    private CompilationDto buildById(Long compId) {
+        return compilationViewStore.build(List.of(getCompilationById(compId))).get(0);
     }
 
     private Compilation getCompilationById(Long compId) {
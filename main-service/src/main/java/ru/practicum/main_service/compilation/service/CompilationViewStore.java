@@ -0,0 +1,197 @@
+package ru.practicum.main_service.compilation.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main_service.category.model.CategoryChangedEvent;
+import ru.practicum.main_service.compilation.dto.CompilationDto;
+import ru.practicum.main_service.compilation.mapper.CompilationMapper;
+import ru.practicum.main_service.compilation.model.Compilation;
+import ru.practicum.main_service.compilation.model.CompilationChangedEvent;
+import ru.practicum.main_service.compilation.repository.CompilationRepository;
+import ru.practicum.main_service.event.dto.EventShortDto;
+import ru.practicum.main_service.event.model.EventChangedEvent;
+import ru.practicum.main_service.event.service.EventService;
+import ru.practicum.main_service.exception.NotFoundException;
+import ru.practicum.main_service.user.model.UserChangedEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps fully built compilation responses in memory for the public endpoints.
+ * The snapshot is dropped after committed changes of compilations and of the events, categories
+ * and initiators shown in it, and rebuilt on a schedule, so event views in it are at most
+ * one refresh interval old.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CompilationViewStore {
+    private final CompilationRepository compilationRepository;
+    private final CompilationMapper compilationMapper;
+    private final EventService eventService;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @Getter
+    @Value("${compilations.view-store.enabled:true}")
+    private boolean enabled;
+
+    public List<CompilationDto> getAll(Boolean pinned, Pageable pageable) {
+        return getSnapshot().getCompilations().stream()
+                .filter(compilation -> pinned == null || pinned.equals(compilation.getPinned()))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList());
+    }
+
+    public CompilationDto getById(Long compId) {
+        CompilationDto compilation = getSnapshot().getById().get(compId);
+
+        if (compilation == null) {
+            throw new NotFoundException("No such compilation with id " + compId);
+        }
+
+        return compilation;
+    }
+
+    public List<CompilationDto> build(List<Compilation> compilations) {
+        if (compilations.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<Long>> compEventIds = new HashMap<>();
+        Set<Long> uniqueEvents = new HashSet<>();
+        compilationRepository.findEventIdsByCompilationIdIn(compilations.stream()
+                        .map(Compilation::getId)
+                        .collect(Collectors.toList()))
+                .forEach(compEvent -> {
+                    compEventIds.computeIfAbsent(compEvent.getCompilationId(), id -> new ArrayList<>())
+                            .add(compEvent.getEventId());
+                    uniqueEvents.add(compEvent.getEventId());
+                });
+
+        Map<Long, EventShortDto> eventsShortDto = new HashMap<>();
+        eventService.getEventsShortDtoByIds(new ArrayList<>(uniqueEvents))
+                .forEach(event -> eventsShortDto.put(event.getId(), event));
+
+        List<CompilationDto> result = new ArrayList<>();
+        compilations.forEach(compilation -> {
+            List<EventShortDto> compEventsShortDto = compEventIds.getOrDefault(compilation.getId(), List.of()).stream()
+                    .map(eventsShortDto::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            result.add(compilationMapper.toCompilationDto(compilation, compEventsShortDto));
+        });
+
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${compilations.view-store.refresh-ms:60000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.error("Failed to refresh compilations: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompilationChanged(CompilationChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null || current.getEventIds().contains(event.getEventId())) {
+            version.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null || current.getCategoryIds().contains(event.getCategoryId())) {
+            version.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null || current.getInitiatorIds().contains(event.getUserId())) {
+            version.incrementAndGet();
+        }
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.getVersion() == version.get()) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.getVersion() == version.get()) {
+                return current;
+            }
+            return load();
+        }
+    }
+
+    private synchronized Snapshot load() {
+        long loadedVersion = version.get();
+
+        List<CompilationDto> compilations = transactionTemplate.execute(status ->
+                build(compilationRepository.findAll(Sort.by("id"))));
+
+        Snapshot loaded = new Snapshot(loadedVersion, Objects.requireNonNull(compilations));
+        snapshot = loaded;
+
+        return loaded;
+    }
+
+    @Getter
+    private static class Snapshot {
+        private final long version;
+        private final List<CompilationDto> compilations;
+        private final Map<Long, CompilationDto> byId = new HashMap<>();
+        private final Set<Long> eventIds = new HashSet<>();
+        private final Set<Long> categoryIds = new HashSet<>();
+        private final Set<Long> initiatorIds = new HashSet<>();
+
+        private Snapshot(long version, List<CompilationDto> compilations) {
+            this.version = version;
+            this.compilations = compilations;
+            compilations.forEach(compilation -> {
+                byId.put(compilation.getId(), compilation);
+                compilation.getEvents().forEach(event -> {
+                    eventIds.add(event.getId());
+                    categoryIds.add(event.getCategory().getId());
+                    initiatorIds.add(event.getInitiator().getId());
+                });
+            });
+        }
+    }
+}
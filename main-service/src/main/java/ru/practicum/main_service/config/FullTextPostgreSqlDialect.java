@@ -0,0 +1,25 @@
+package ru.practicum.main_service.config;
+
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers full-text functions over annotation and description of an event. The tsvector expression
+ * must stay identical to the one of events_text_search_idx, otherwise the index is not used.
+ */
+public class FullTextPostgreSqlDialect extends PostgreSQL10Dialect {
+    public static final String FTS_MATCH = "fts_match";
+    public static final String FTS_RANK = "fts_rank";
+
+    private static final String TS_VECTOR = "to_tsvector('simple', ?1 || ' ' || ?2)";
+    private static final String TS_QUERY = "plainto_tsquery('simple', ?3)";
+
+    public FullTextPostgreSqlDialect() {
+        super();
+        registerFunction(FTS_MATCH, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(" + TS_VECTOR + " @@ " + TS_QUERY + ")"));
+        registerFunction(FTS_RANK, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+                "ts_rank(" + TS_VECTOR + ", " + TS_QUERY + ")"));
+    }
+}
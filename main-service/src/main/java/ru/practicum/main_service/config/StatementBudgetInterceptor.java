@@ -0,0 +1,50 @@
+package ru.practicum.main_service.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports GET requests that issued more SQL statements than jpa.statement-budget.max-statements,
+ * which is how N+1 regressions on listing endpoints show up. Registered only when jpa.statement-budget.enabled
+ * is set; StatementBudgetTest is what fails the build on such regressions.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatementBudgetInterceptor implements HandlerInterceptor {
+    private final StatementCounter statementCounter;
+
+    @Value("${jpa.statement-budget.max-statements:10}")
+    private int maxStatements;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        statementCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        int statements = statementCounter.get();
+        if (!"GET".equals(request.getMethod()) || statements <= maxStatements) {
+            return;
+        }
+
+        log.warn("{} {} issued {} SQL statements, budget is {}",
+                request.getMethod(), request.getRequestURI(), statements, maxStatements);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        statementCounter.reset();
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.main_service.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts SQL statements prepared by Hibernate on the current thread.
+ */
+@Component
+public class StatementCounter implements StatementInspector {
+    private final ThreadLocal<Integer> count = ThreadLocal.withInitial(() -> 0);
+
+    @Override
+    public String inspect(String sql) {
+        count.set(count.get() + 1);
+        return sql;
+    }
+
+    public int get() {
+        return count.get();
+    }
+
+    public void reset() {
+        count.remove();
+    }
+}
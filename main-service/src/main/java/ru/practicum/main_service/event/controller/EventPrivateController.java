@@ -2,6 +2,7 @@ package ru.practicum.main_service.event.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +24,7 @@ import ru.practicum.main_service.event.dto.UpdateEventUserRequest;
 import ru.practicum.main_service.event.service.EventService;
 import ru.practicum.main_service.event.service.RequestService;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
@@ -40,9 +42,12 @@ public class EventPrivateController {
     @ResponseStatus(HttpStatus.OK)
     public List<EventShortDto> getAllEventsByPrivate(
             @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10") @Positive Integer size) {
-        return eventService.getAllEventsByPrivate(userId, PageRequest.of(from / size, size));
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            HttpServletResponse response) {
+        return eventService.getAllEventsByPrivate(userId, cursor, PageRequest.of(from / size, size, Sort.by("id")),
+                response);
     }
 
     @PostMapping
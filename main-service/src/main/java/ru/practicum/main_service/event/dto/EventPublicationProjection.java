@@ -0,0 +1,13 @@
+package ru.practicum.main_service.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class EventPublicationProjection {
+    private Long id;
+    private LocalDateTime publishedOn;
+}
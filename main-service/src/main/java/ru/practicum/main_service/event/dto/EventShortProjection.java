@@ -0,0 +1,23 @@
+package ru.practicum.main_service.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class EventShortProjection {
+    private Long id;
+    private String annotation;
+    private String title;
+    private LocalDateTime eventDate;
+    private Boolean paid;
+    private Long confirmedRequests;
+    private Long views;
+    private LocalDateTime publishedOn;
+    private Long categoryId;
+    private String categoryName;
+    private Long initiatorId;
+    private String initiatorName;
+}
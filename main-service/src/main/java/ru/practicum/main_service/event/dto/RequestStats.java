@@ -1,17 +0,0 @@
-package ru.practicum.main_service.event.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
-
-@Getter
-@Setter
-@AllArgsConstructor
-@NoArgsConstructor
-@Builder
-public class RequestStats {
-    private Long eventId;
-    private Long confirmedRequests;
-}
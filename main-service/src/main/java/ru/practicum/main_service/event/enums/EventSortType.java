@@ -1,5 +1,5 @@
 package ru.practicum.main_service.event.enums;
 
 public enum EventSortType {
-    EVENT_DATE, VIEWS
+    EVENT_DATE, VIEWS, RELEVANCE, DISTANCE
 }
@@ -2,14 +2,17 @@ package ru.practicum.main_service.event.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import ru.practicum.main_service.category.dto.CategoryDto;
 import ru.practicum.main_service.category.mapper.CategoryMapper;
 import ru.practicum.main_service.category.model.Category;
 import ru.practicum.main_service.event.dto.EventFullDto;
 import ru.practicum.main_service.event.dto.EventShortDto;
+import ru.practicum.main_service.event.dto.EventShortProjection;
 import ru.practicum.main_service.event.dto.NewEventDto;
 import ru.practicum.main_service.event.enums.EventState;
 import ru.practicum.main_service.event.model.Event;
 import ru.practicum.main_service.event.model.Location;
+import ru.practicum.main_service.user.dto.UserShortDto;
 import ru.practicum.main_service.user.mapper.UserMapper;
 import ru.practicum.main_service.user.model.User;
 
@@ -21,10 +24,25 @@ public interface EventMapper {
     @Mapping(target = "category", source = "category")
     @Mapping(target = "location", source = "location")
     @Mapping(target = "publishedOn", expression = "java(null)")
+    @Mapping(target = "confirmedRequests", ignore = true)
+    @Mapping(target = "views", ignore = true)
     Event toEvent(NewEventDto newEventDto, User initiator, Category category, Location location, LocalDateTime createdOn,
                   EventState state);
 
-    EventFullDto toEventFullDto(Event event, Long confirmedRequests, Long views);
+    EventFullDto toEventFullDto(Event event, Long views);
 
-    EventShortDto toEventShortDto(Event event, Long confirmedRequests, Long views);
+    @Mapping(target = "id", source = "event.id")
+    @Mapping(target = "initiator", source = "initiator")
+    @Mapping(target = "category", source = "category")
+    @Mapping(target = "views", source = "views")
+    EventFullDto toEventFullDto(Event event, Long views, UserShortDto initiator, CategoryDto category);
+
+    EventShortDto toEventShortDto(Event event, Long views);
+
+    @Mapping(target = "category.id", source = "projection.categoryId")
+    @Mapping(target = "category.name", source = "projection.categoryName")
+    @Mapping(target = "initiator.id", source = "projection.initiatorId")
+    @Mapping(target = "initiator.name", source = "projection.initiatorName")
+    @Mapping(target = "views", source = "views")
+    EventShortDto toEventShortDto(EventShortProjection projection, Long views);
 }
@@ -3,11 +3,13 @@ package ru.practicum.main_service.event.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.main_service.event.dto.LocationDto;
+import ru.practicum.main_service.event.model.GeoHash;
 import ru.practicum.main_service.event.model.Location;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", imports = GeoHash.class)
 public interface LocationMapper {
     @Mapping(target = "id", expression = "java(null)")
+    @Mapping(target = "geohash", expression = "java(GeoHash.encode(locationDto.getLat(), locationDto.getLon()))")
     Location toLocation(LocationDto locationDto);
 
     LocationDto toLocationDto(Location location);
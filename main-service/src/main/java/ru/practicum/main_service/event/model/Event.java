@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenerationTime;
+import org.hibernate.annotations.Generated;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import ru.practicum.main_service.category.model.Category;
@@ -20,17 +22,26 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "events", schema = "public")
+@NamedEntityGraph(name = Event.GRAPH_DETAILS, attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("location"),
+        @NamedAttributeNode("initiator")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Event {
+    public static final String GRAPH_DETAILS = "Event.details";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -77,4 +88,12 @@ public class Event {
 
     @Column(nullable = false)
     private Boolean requestModeration;
+
+    @Generated(GenerationTime.INSERT)
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
+    private Long confirmedRequests;
+
+    @Generated(GenerationTime.INSERT)
+    @Column(insertable = false, updatable = false)
+    private Long views;
 }
@@ -0,0 +1,10 @@
+package ru.practicum.main_service.event.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class EventChangedEvent {
+    private final Long eventId;
+}
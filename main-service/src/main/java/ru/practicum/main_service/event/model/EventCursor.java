@@ -0,0 +1,78 @@
+package ru.practicum.main_service.event.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.main_service.event.dto.EventShortProjection;
+import ru.practicum.main_service.event.enums.EventSortType;
+import ru.practicum.main_service.exception.WrongCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position in an event listing: the sort key and id of the last returned event.
+ * A cursor is only valid for the sort order it was issued for.
+ */
+@Getter
+@AllArgsConstructor
+public class EventCursor {
+    public static final String HEADER = "X-Next-Cursor";
+
+    private static final String ID_ORDER = "ID";
+    private static final String SEPARATOR = "|";
+
+    private final EventSortType sort;
+    private final Long id;
+    private final Long views;
+    private final LocalDateTime eventDate;
+
+    public static EventCursor after(Event event, EventSortType sort) {
+        return new EventCursor(sort, event.getId(), event.getViews(), event.getEventDate());
+    }
+
+    public static EventCursor after(EventShortProjection event, EventSortType sort) {
+        return new EventCursor(sort, event.getId(), event.getViews(), event.getEventDate());
+    }
+
+    public static EventCursor decode(String cursor, EventSortType sort) {
+        if (sort == EventSortType.RELEVANCE || sort == EventSortType.DISTANCE) {
+            throw new WrongCursorException("Cursor pagination is not supported for sort " + sort);
+        }
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(sortName(sort))) {
+                throw new WrongCursorException("Cursor does not match sort " + sortName(sort));
+            }
+
+            Long id = Long.parseLong(parts[1]);
+            if (sort == EventSortType.VIEWS) {
+                return new EventCursor(sort, id, Long.parseLong(parts[2]), null);
+            } else if (sort == EventSortType.EVENT_DATE) {
+                return new EventCursor(sort, id, null, LocalDateTime.parse(parts[2]));
+            }
+            return new EventCursor(sort, id, null, null);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new WrongCursorException("Malformed cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        String key = "";
+        if (sort == EventSortType.VIEWS) {
+            key = String.valueOf(views);
+        } else if (sort == EventSortType.EVENT_DATE) {
+            key = eventDate.toString();
+        }
+
+        String value = sortName(sort) + SEPARATOR + id + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sortName(EventSortType sort) {
+        return sort == null ? ID_ORDER : sort.name();
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.main_service.event.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Geohash encoding of event locations. Nearby points share a hash prefix, so an area search
+ * becomes a few prefix scans of locations_geohash_idx followed by an exact distance check.
+ */
+public final class GeoHash {
+    public static final int PRECISION = 9;
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double lat, double lon) {
+        return encode(lat, lon, PRECISION);
+    }
+
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90.0;
+        double maxLat = 90.0;
+        double minLon = -180.0;
+        double maxLon = 180.0;
+        boolean isLon = true;
+        StringBuilder hash = new StringBuilder(precision);
+
+        while (hash.length() < precision) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                index <<= 1;
+                if (isLon) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (lon >= mid) {
+                        index |= 1;
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (lat >= mid) {
+                        index |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                isLon = !isLon;
+            }
+            hash.append(BASE32[index]);
+        }
+
+        return hash.toString();
+    }
+
+    /**
+     * Returns at most four hash prefixes whose cells together cover the circle, or an empty list
+     * when the circle is too large or crosses a pole or the antimeridian and cannot be prefiltered.
+     */
+    public static List<String> coveringPrefixes(double lat, double lon, double radiusKm) {
+        double latDelta = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double minLat = lat - latDelta;
+        double maxLat = lat + latDelta;
+        if (minLat < -90.0 || maxLat > 90.0) {
+            return List.of();
+        }
+
+        double widestLat = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double lonDelta = Math.toDegrees(radiusKm / (EARTH_RADIUS_KM * Math.cos(Math.toRadians(widestLat))));
+        double minLon = lon - lonDelta;
+        double maxLon = lon + lonDelta;
+        if (minLon < -180.0 || maxLon > 180.0) {
+            return List.of();
+        }
+
+        for (int precision = PRECISION; precision > 0; precision--) {
+            int bits = precision * 5;
+            double cellHeight = 180.0 / (1L << (bits / 2));
+            double cellWidth = 360.0 / (1L << ((bits + 1) / 2));
+
+            if (cellHeight >= maxLat - minLat && cellWidth >= maxLon - minLon) {
+                TreeSet<String> prefixes = new TreeSet<>();
+                prefixes.add(encode(minLat, minLon, precision));
+                prefixes.add(encode(minLat, maxLon, precision));
+                prefixes.add(encode(maxLat, minLon, precision));
+                prefixes.add(encode(maxLat, maxLon, precision));
+                return new ArrayList<>(prefixes);
+            }
+        }
+
+        return List.of();
+    }
+}
@@ -32,6 +32,9 @@ public class Location {
     @Column(nullable = false)
     private Float lon;
 
+    @Column(nullable = false, length = 12)
+    private String geohash;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,15 +1,21 @@
 package ru.practicum.main_service.event.repository;
 
+import ru.practicum.main_service.event.dto.EventShortProjection;
+import ru.practicum.main_service.event.enums.EventSortType;
 import ru.practicum.main_service.event.enums.EventState;
 import ru.practicum.main_service.event.model.Event;
+import ru.practicum.main_service.event.model.EventCursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 public interface EventCustomRepository {
     List<Event> getEventsByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
-                                 LocalDateTime rangeStart, LocalDateTime rangeEnd, Integer from, Integer size);
+                                 LocalDateTime rangeStart, LocalDateTime rangeEnd, EventCursor cursor, Integer from,
+                                 Integer size);
 
-    List<Event> getEventsByPublic(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
-                                  LocalDateTime rangeEnd, Integer from, Integer size);
+    List<EventShortProjection> getEventsByPublic(String text, List<Long> categories, Boolean paid,
+                                                 LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                 Boolean onlyAvailable, Float lat, Float lon, Float radius,
+                                                 EventSortType sort, EventCursor cursor, Integer from, Integer size);
 }
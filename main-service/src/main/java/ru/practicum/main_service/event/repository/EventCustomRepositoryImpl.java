@@ -1,12 +1,24 @@
 package ru.practicum.main_service.event.repository;
 
+import org.springframework.beans.factory.annotation.Value;
+import ru.practicum.main_service.category.model.Category;
+import ru.practicum.main_service.config.FullTextPostgreSqlDialect;
+import ru.practicum.main_service.event.dto.EventShortProjection;
+import ru.practicum.main_service.event.enums.EventSortType;
 import ru.practicum.main_service.event.enums.EventState;
 import ru.practicum.main_service.event.model.Event;
+import ru.practicum.main_service.event.model.EventCursor;
+import ru.practicum.main_service.event.model.GeoHash;
+import ru.practicum.main_service.event.model.Location;
+import ru.practicum.main_service.user.model.User;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.time.LocalDateTime;
@@ -16,11 +28,16 @@ public class EventCustomRepositoryImpl implements EventCustomRepository {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Value("${events.search.full-text:true}")
+    private boolean fullTextSearch;
+
     public List<Event> getEventsByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
-                                               LocalDateTime rangeStart, LocalDateTime rangeEnd, Integer from, Integer size) {
+                                               LocalDateTime rangeStart, LocalDateTime rangeEnd, EventCursor cursor,
+                                               Integer from, Integer size) {
         CriteriaBuilder builder = entityManager.getCriteriaBuilder();
         CriteriaQuery<Event> query = builder.createQuery(Event.class);
         Root<Event> root = query.from(Event.class);
+        fetchDetails(root);
         Predicate criteria = builder.conjunction();
 
         if (users != null && !users.isEmpty()) {
@@ -43,18 +60,35 @@ public class EventCustomRepositoryImpl implements EventCustomRepository {
             criteria = builder.and(criteria, builder.lessThanOrEqualTo(root.get("eventDate"), rangeEnd));
         }
 
-        query.select(root).where(criteria);
-        return entityManager.createQuery(query).setFirstResult(from).setMaxResults(size).getResultList();
+        if (cursor != null) {
+            criteria = builder.and(criteria, seek(builder, root, cursor));
+        }
+
+        query.select(root).where(criteria).orderBy(builder.asc(root.get("id")));
+        return getPage(query, cursor, from, size);
     }
 
-    public List<Event> getEventsByPublic(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
-                                         LocalDateTime rangeEnd, Integer from, Integer size) {
+    public List<EventShortProjection> getEventsByPublic(String text, List<Long> categories, Boolean paid,
+                                                        LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                        Boolean onlyAvailable, Float lat, Float lon, Float radius,
+                                                        EventSortType sort, EventCursor cursor, Integer from,
+                                                        Integer size) {
         CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Event> query = builder.createQuery(Event.class);
+        CriteriaQuery<EventShortProjection> query = builder.createQuery(EventShortProjection.class);
         Root<Event> root = query.from(Event.class);
+        Join<Event, Category> category = root.join("category", JoinType.LEFT);
+        Join<Event, User> initiator = root.join("initiator", JoinType.LEFT);
         Predicate criteria = builder.conjunction();
 
-        if (text != null && !text.isBlank()) {
+        boolean hasText = text != null && !text.isBlank();
+        // Whole-word full-text matching is opted into by the RELEVANCE sort, the others keep substring search,
+        // which PostgreSQL serves from the trigram indexes on the lowered text
+        boolean fullText = hasText && fullTextSearch && sort == EventSortType.RELEVANCE;
+
+        if (fullText) {
+            criteria = builder.and(criteria, builder.isTrue(textFunction(builder, root,
+                    FullTextPostgreSqlDialect.FTS_MATCH, Boolean.class, text)));
+        } else if (hasText) {
             Predicate annotation = builder.like(builder.lower(root.get("annotation")), "%" + text.toLowerCase() + "%");
             Predicate description = builder.like(builder.lower(root.get("description")), "%" + text.toLowerCase() + "%");
             criteria = builder.and(criteria, builder.or(annotation, description));
@@ -80,9 +114,119 @@ public class EventCustomRepositoryImpl implements EventCustomRepository {
             }
         }
 
-        criteria = builder.and(criteria, root.get("state").in(EventState.PUBLISHED));
+        if (onlyAvailable != null && onlyAvailable) {
+            criteria = builder.and(criteria, builder.or(
+                    builder.equal(root.get("participantLimit"), 0),
+                    builder.lessThan(root.<Long>get("confirmedRequests"), root.<Long>get("participantLimit"))));
+        }
+
+        Expression<Double> distance = null;
+
+        if (lat != null && lon != null && radius != null) {
+            Join<Event, Location> location = root.join("location");
+            distance = distanceKm(builder, location, lat, lon);
+
+            List<String> prefixes = GeoHash.coveringPrefixes(lat, lon, radius);
+            if (!prefixes.isEmpty()) {
+                criteria = builder.and(criteria, builder.or(prefixes.stream()
+                        .map(prefix -> builder.like(location.get("geohash"), prefix + "%"))
+                        .toArray(Predicate[]::new)));
+            }
+
+            criteria = builder.and(criteria, builder.lessThanOrEqualTo(distance, radius.doubleValue()));
+        }
+
+        if (cursor != null) {
+            criteria = builder.and(criteria, seek(builder, root, cursor));
+        }
+
+        criteria = builder.and(criteria, builder.equal(root.get("state"), EventState.PUBLISHED));
+
+        query.select(builder.construct(EventShortProjection.class,
+                root.get("id"),
+                root.get("annotation"),
+                root.get("title"),
+                root.get("eventDate"),
+                root.get("paid"),
+                root.get("confirmedRequests"),
+                root.get("views"),
+                root.get("publishedOn"),
+                category.get("id"),
+                category.get("name"),
+                initiator.get("id"),
+                initiator.get("name")))
+                .where(criteria);
+
+        if (sort == EventSortType.VIEWS) {
+            query.orderBy(builder.desc(root.get("views")), builder.asc(root.get("id")));
+        } else if (sort == EventSortType.EVENT_DATE) {
+            query.orderBy(builder.asc(root.get("eventDate")), builder.asc(root.get("id")));
+        } else if (fullText) {
+            query.orderBy(builder.desc(textFunction(builder, root, FullTextPostgreSqlDialect.FTS_RANK, Double.class, text)),
+                    builder.asc(root.get("id")));
+        } else if (sort == EventSortType.DISTANCE && distance != null) {
+            query.orderBy(builder.asc(distance), builder.asc(root.get("id")));
+        } else {
+            query.orderBy(builder.asc(root.get("id")));
+        }
+
+        return getPage(query, cursor, from, size);
+    }
+
+    private void fetchDetails(Root<Event> root) {
+        root.fetch("category", JoinType.LEFT);
+        root.fetch("location", JoinType.LEFT);
+        root.fetch("initiator", JoinType.LEFT);
+    }
+
+    private Predicate seek(CriteriaBuilder builder, Root<Event> root, EventCursor cursor) {
+        Predicate afterId = builder.greaterThan(root.<Long>get("id"), cursor.getId());
+
+        if (cursor.getSort() == EventSortType.VIEWS) {
+            return builder.or(builder.lessThan(root.<Long>get("views"), cursor.getViews()),
+                    builder.and(builder.equal(root.<Long>get("views"), cursor.getViews()), afterId));
+        } else if (cursor.getSort() == EventSortType.EVENT_DATE) {
+            return builder.or(builder.greaterThan(root.<LocalDateTime>get("eventDate"), cursor.getEventDate()),
+                    builder.and(builder.equal(root.<LocalDateTime>get("eventDate"), cursor.getEventDate()), afterId));
+        }
+        return afterId;
+    }
+
+    private <T> List<T> getPage(CriteriaQuery<T> query, EventCursor cursor, Integer from, Integer size) {
+        return entityManager.createQuery(query)
+                .setFirstResult(cursor == null ? from : 0)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    /**
+     * Haversine distance built from standard SQL math functions, so it runs on PostgreSQL and H2 alike.
+     */
+    private Expression<Double> distanceKm(CriteriaBuilder builder, Join<Event, Location> location, Float lat,
+                                          Float lon) {
+        Expression<Double> latRad = radians(builder, location.get("lat"));
+        Expression<Double> lonRad = radians(builder, location.get("lon"));
+        double centerLatRad = Math.toRadians(lat);
+        double centerLonRad = Math.toRadians(lon);
+
+        Expression<Double> sinLat = builder.function("sin", Double.class,
+                builder.quot(builder.diff(latRad, centerLatRad), 2.0));
+        Expression<Double> sinLon = builder.function("sin", Double.class,
+                builder.quot(builder.diff(lonRad, centerLonRad), 2.0));
+        Expression<Double> haversine = builder.sum(builder.prod(sinLat, sinLat),
+                builder.prod(builder.prod(builder.function("cos", Double.class, latRad), Math.cos(centerLatRad)),
+                        builder.prod(sinLon, sinLon)));
+
+        return builder.prod(2 * GeoHash.EARTH_RADIUS_KM, builder.function("asin", Double.class,
+                builder.function("sqrt", Double.class, haversine)));
+    }
+
+    private Expression<Double> radians(CriteriaBuilder builder, Expression<Float> degrees) {
+        return builder.function("radians", Double.class, degrees);
+    }
 
-        query.select(root).where(criteria);
-        return entityManager.createQuery(query).setFirstResult(from).setMaxResults(size).getResultList();
+    private <T> Expression<T> textFunction(CriteriaBuilder builder, Root<Event> root, String name, Class<T> type,
+                                           String text) {
+        return builder.function(name, type, root.get("annotation"), root.get("description"), builder.literal(text));
     }
 }
@@ -1,16 +1,87 @@
 package ru.practicum.main_service.event.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.main_service.event.dto.EventPublicationProjection;
+import ru.practicum.main_service.event.dto.EventShortProjection;
+import ru.practicum.main_service.event.enums.EventState;
 import ru.practicum.main_service.event.model.Event;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface EventRepository extends JpaRepository<Event, Long>, EventCustomRepository {
+    @Override
+    @EntityGraph(Event.GRAPH_DETAILS)
+    Optional<Event> findById(Long eventId);
+
+    @EntityGraph(Event.GRAPH_DETAILS)
     List<Event> findAllByInitiatorId(Long userId, Pageable pageable);
 
+    @EntityGraph(Event.GRAPH_DETAILS)
+    List<Event> findAllByInitiatorIdAndIdGreaterThan(Long userId, Long id, Pageable pageable);
+
+    @EntityGraph(Event.GRAPH_DETAILS)
     Optional<Event> findByIdAndInitiatorId(Long eventId, Long userId);
 
+    @EntityGraph(Event.GRAPH_DETAILS)
     List<Event> findAllByIdIn(List<Long> eventsId);
+
+    @Query("SELECT new ru.practicum.main_service.event.dto.EventShortProjection(e.id, e.annotation, e.title, " +
+            "e.eventDate, e.paid, e.confirmedRequests, e.views, e.publishedOn, c.id, c.name, u.id, u.name) " +
+            "FROM Event AS e " +
+            "LEFT JOIN e.category AS c " +
+            "LEFT JOIN e.initiator AS u " +
+            "WHERE e.id IN ?1")
+    List<EventShortProjection> findShortProjectionsByIdIn(List<Long> eventsId);
+
+    @Query("SELECT new ru.practicum.main_service.event.dto.EventPublicationProjection(e.id, e.publishedOn) " +
+            "FROM Event AS e " +
+            "WHERE e.state = ?1 AND e.eventDate >= ?2 AND e.id > ?3 " +
+            "ORDER BY e.id")
+    List<EventPublicationProjection> findPublicationsByStateAndEventDateFrom(EventState state,
+                                                                             LocalDateTime eventDate, Long id,
+                                                                             Pageable pageable);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Event AS e " +
+            "SET e.views = ?2 " +
+            "WHERE e.id = ?1 AND e.views <> ?2")
+    int updateViews(Long eventId, Long views);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Event AS e " +
+            "SET e.confirmedRequests = e.confirmedRequests + ?2 " +
+            "WHERE e.id = ?1")
+    int addConfirmedRequests(Long eventId, Long delta);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Event AS e " +
+            "SET e.confirmedRequests = e.confirmedRequests + ?2 " +
+            "WHERE e.id = ?1 " +
+            "AND (e.participantLimit = 0 OR e.confirmedRequests + ?2 <= e.participantLimit)")
+    int reserveConfirmedRequests(Long eventId, Long count);
+
+    @Query("SELECT e.confirmedRequests FROM Event AS e WHERE e.id = ?1")
+    Long getConfirmedRequests(Long eventId);
+
+    @Query("SELECT e.id FROM Event AS e " +
+            "WHERE e.confirmedRequests <> " +
+            "(SELECT COUNT(r.id) FROM Request AS r WHERE r.event.id = e.id AND r.status = 'CONFIRMED')")
+    List<Long> findIdsWithStaleConfirmedRequests();
+
+    @Query(value = "SELECT id FROM events WHERE id = ?1 FOR UPDATE", nativeQuery = true)
+    Long lockById(Long eventId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "UPDATE events " +
+            "SET confirmed_requests = " +
+            "(SELECT COUNT(*) FROM requests AS r WHERE r.event_id = events.id AND r.status = 'CONFIRMED') " +
+            "WHERE id = ?1",
+            nativeQuery = true)
+    int recountConfirmedRequests(Long eventId);
 }
@@ -1,10 +1,20 @@
 package ru.practicum.main_service.event.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.main_service.event.model.Location;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface LocationRepository extends JpaRepository<Location, Long> {
-    Optional<Location> findByLatAndLon(Float lat, Float lon);
+    Optional<Location> findByGeohashAndLatAndLon(String geohash, Float lat, Float lon);
+
+    List<Location> findAllByGeohashIsNull(Pageable pageable);
+
+    @Modifying
+    @Query(value = "ALTER TABLE locations ALTER COLUMN geohash SET NOT NULL", nativeQuery = true)
+    void requireGeohash();
 }
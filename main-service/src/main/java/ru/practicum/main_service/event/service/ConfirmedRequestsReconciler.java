@@ -0,0 +1,51 @@
+package ru.practicum.main_service.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main_service.event.repository.EventRepository;
+
+import java.util.List;
+
+/**
+ * Repairs events.confirmed_requests where it drifted from the number of confirmed requests.
+ * Every event is recounted under its row lock, so concurrent confirmations are never overwritten.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConfirmedRequestsReconciler {
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${events.confirmed-requests.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Scheduled(cron = "${events.confirmed-requests.reconcile.cron:0 */10 * * * *}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            List<Long> eventIds = eventRepository.findIdsWithStaleConfirmedRequests();
+
+            for (Long eventId : eventIds) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    eventRepository.lockById(eventId);
+                    eventRepository.recountConfirmedRequests(eventId);
+                });
+            }
+
+            if (!eventIds.isEmpty()) {
+                log.warn("Reconciled confirmed requests of {} events", eventIds.size());
+            }
+        } catch (DataAccessException e) {
+            log.error("Failed to reconcile confirmed requests: {}", e.getMessage());
+        }
+    }
+}
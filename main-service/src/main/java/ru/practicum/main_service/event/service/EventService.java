@@ -11,16 +11,19 @@ import ru.practicum.main_service.event.enums.EventState;
 import ru.practicum.main_service.event.model.Event;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.time.LocalDateTime;
 import java.util.List;
 
 public interface EventService {
     List<EventFullDto> getEventsByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
-                                        LocalDateTime rangeStart, LocalDateTime rangeEnd, Integer from, Integer size);
+                                        LocalDateTime rangeStart, LocalDateTime rangeEnd, String cursor, Integer from,
+                                        Integer size, HttpServletResponse response);
 
     EventFullDto patchEventByAdmin(Long eventId, UpdateEventAdminRequest updateEventAdminRequest);
 
-    List<EventShortDto> getAllEventsByPrivate(Long userId, Pageable pageable);
+    List<EventShortDto> getAllEventsByPrivate(Long userId, String cursor, Pageable pageable,
+                                              HttpServletResponse response);
 
     EventFullDto createEventByPrivate(Long userId, NewEventDto newEventDto);
 
@@ -29,8 +32,9 @@ public interface EventService {
     EventFullDto patchEventByPrivate(Long userId, Long eventId, UpdateEventUserRequest updateEventUserRequest);
 
     List<EventShortDto> getEventsByPublic(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
-                                          LocalDateTime rangeEnd, Boolean onlyAvailable, EventSortType sort,
-                                          Integer from, Integer size, HttpServletRequest request);
+                                          LocalDateTime rangeEnd, Boolean onlyAvailable, Float lat, Float lon,
+                                          Float radius, EventSortType sort, String cursor, Integer from, Integer size,
+                                          HttpServletRequest request, HttpServletResponse response);
 
     EventFullDto getEventByPublic(Long id, HttpServletRequest request);
 
@@ -39,4 +43,6 @@ public interface EventService {
     List<Event> getEventsByIds(List<Long> eventsId);
 
     List<EventShortDto> toEventsShortDto(List<Event> events);
+
+    List<EventShortDto> getEventsShortDtoByIds(List<Long> eventsId);
 }
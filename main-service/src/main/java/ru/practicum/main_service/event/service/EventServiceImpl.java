@@ -2,13 +2,17 @@ package ru.practicum.main_service.event.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.main_service.category.model.Category;
+import ru.practicum.main_service.category.dto.CategoryDto;
 import ru.practicum.main_service.category.service.CategoryService;
 import ru.practicum.main_service.event.dto.EventFullDto;
 import ru.practicum.main_service.event.dto.EventShortDto;
+import ru.practicum.main_service.event.dto.EventShortProjection;
 import ru.practicum.main_service.event.dto.LocationDto;
 import ru.practicum.main_service.event.dto.NewEventDto;
 import ru.practicum.main_service.event.dto.UpdateEventAdminRequest;
@@ -18,22 +22,29 @@ import ru.practicum.main_service.event.enums.EventState;
 import ru.practicum.main_service.event.mapper.EventMapper;
 import ru.practicum.main_service.event.mapper.LocationMapper;
 import ru.practicum.main_service.event.model.Event;
+import ru.practicum.main_service.event.model.EventChangedEvent;
+import ru.practicum.main_service.event.model.EventCursor;
 import ru.practicum.main_service.event.model.Location;
 import ru.practicum.main_service.event.repository.EventRepository;
 import ru.practicum.main_service.event.repository.LocationRepository;
 import ru.practicum.main_service.exception.ForbiddenException;
 import ru.practicum.main_service.exception.NotFoundException;
 import ru.practicum.main_service.exception.WrongDateIntervalException;
-import ru.practicum.main_service.user.model.User;
+import ru.practicum.main_service.exception.WrongSearchAreaException;
+import ru.practicum.main_service.user.dto.UserDto;
+import ru.practicum.main_service.user.dto.UserShortDto;
+import ru.practicum.main_service.user.mapper.UserMapper;
 import ru.practicum.main_service.user.service.UserService;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,14 +59,20 @@ public class EventServiceImpl implements EventService {
     private final EventRepository eventRepository;
     private final EventMapper eventMapper;
     private final LocationMapper locationMapper;
+    private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<EventFullDto> getEventsByAdmin(List<Long> users, List<EventState> states, List<Long> categories,
-                                               LocalDateTime rangeStart, LocalDateTime rangeEnd, Integer from, Integer size) {
+                                               LocalDateTime rangeStart, LocalDateTime rangeEnd, String cursor,
+                                               Integer from, Integer size, HttpServletResponse response) {
 
         checkStartIsBeforeEnd(rangeStart, rangeEnd);
 
-        List<Event> events = eventRepository.getEventsByAdmin(users, states, categories, rangeStart, rangeEnd, from, size);
+        List<Event> events = eventRepository.getEventsByAdmin(users, states, categories, rangeStart, rangeEnd,
+                decodeCursor(cursor, null), from, size);
+
+        setNextCursor(response, events, size, event -> EventCursor.after(event, null));
 
         return toEventsFullDto(events);
     }
@@ -66,6 +83,7 @@ public class EventServiceImpl implements EventService {
         checkNewEventDate(updateEventAdminRequest.getEventDate(), LocalDateTime.now().plusHours(1));
 
         Event event = getEventById(eventId);
+        CategoryDto category = null;
 
         if (updateEventAdminRequest.getAnnotation() != null) {
             event.setAnnotation(updateEventAdminRequest.getAnnotation());
@@ -76,7 +94,8 @@ public class EventServiceImpl implements EventService {
         }
 
         if (updateEventAdminRequest.getCategory() != null) {
-            event.setCategory(categoryService.getCategoryById(updateEventAdminRequest.getCategory()));
+            category = categoryService.getById(updateEventAdminRequest.getCategory());
+            event.setCategory(categoryService.getCategoryReference(category.getId()));
         }
 
         if (updateEventAdminRequest.getEventDate() != null) {
@@ -92,8 +111,7 @@ public class EventServiceImpl implements EventService {
         }
 
         if (updateEventAdminRequest.getParticipantLimit() != null) {
-            checkIsNewLimitNotLessOld(updateEventAdminRequest.getParticipantLimit(),
-                    statsService.getConfirmedRequests(List.of(event)).getOrDefault(eventId, 0L));
+            checkIsNewLimitNotLessOld(updateEventAdminRequest.getParticipantLimit(), event.getConfirmedRequests());
 
             event.setParticipantLimit(updateEventAdminRequest.getParticipantLimit());
         }
@@ -122,14 +140,25 @@ public class EventServiceImpl implements EventService {
             event.setTitle(updateEventAdminRequest.getTitle());
         }
 
-        return toEventFullDto(eventRepository.save(event));
+        eventPublisher.publishEvent(new EventChangedEvent(eventId));
+
+        return toEventFullDto(eventRepository.save(event), category);
     }
 
     @Override
-    public List<EventShortDto> getAllEventsByPrivate(Long userId, Pageable pageable) {
-        userService.getUserById(userId);
+    public List<EventShortDto> getAllEventsByPrivate(Long userId, String cursor, Pageable pageable,
+                                                     HttpServletResponse response) {
+        userService.getById(userId);
+
+        List<Event> events;
+        if (cursor == null) {
+            events = eventRepository.findAllByInitiatorId(userId, pageable);
+        } else {
+            events = eventRepository.findAllByInitiatorIdAndIdGreaterThan(userId, decodeCursor(cursor, null).getId(),
+                    PageRequest.of(0, pageable.getPageSize(), Sort.by("id")));
+        }
 
-        List<Event> events = eventRepository.findAllByInitiatorId(userId, pageable);
+        setNextCursor(response, events, pageable.getPageSize(), event -> EventCursor.after(event, null));
 
         return toEventsShortDto(events);
     }
@@ -139,19 +168,21 @@ public class EventServiceImpl implements EventService {
     public EventFullDto createEventByPrivate(Long userId, NewEventDto newEventDto) {
         checkNewEventDate(newEventDto.getEventDate(), LocalDateTime.now().plusHours(2));
 
-        User eventUser = userService.getUserById(userId);
-        Category eventCategory = categoryService.getCategoryById(newEventDto.getCategory());
+        // Both checks are served from the caches, the event then links to references without loading them
+        UserDto eventUser = userService.getById(userId);
+        CategoryDto eventCategory = categoryService.getById(newEventDto.getCategory());
         Location eventLocation = getOrSaveLocation(newEventDto.getLocation());
 
-        Event newEvent = eventMapper.toEvent(newEventDto, eventUser, eventCategory, eventLocation, LocalDateTime.now(),
+        Event newEvent = eventMapper.toEvent(newEventDto, userService.getUserReference(userId),
+                categoryService.getCategoryReference(eventCategory.getId()), eventLocation, LocalDateTime.now(),
                 EventState.PENDING);
 
-        return toEventFullDto(eventRepository.save(newEvent));
+        return toEventFullDto(eventRepository.save(newEvent), userMapper.toUserShortDto(eventUser), eventCategory);
     }
 
     @Override
     public EventFullDto getEventByPrivate(Long userId, Long eventId) {
-        userService.getUserById(userId);
+        userService.getById(userId);
 
         Event event = getEventByIdAndInitiatorId(eventId, userId);
 
@@ -164,9 +195,10 @@ public class EventServiceImpl implements EventService {
 
         checkNewEventDate(updateEventUserRequest.getEventDate(), LocalDateTime.now().plusHours(2));
 
-        userService.getUserById(userId);
+        userService.getById(userId);
 
         Event event = getEventByIdAndInitiatorId(eventId, userId);
+        CategoryDto category = null;
 
         if (event.getState().equals(EventState.PUBLISHED)) {
             throw new ForbiddenException("This event cannot be changed");
@@ -177,7 +209,8 @@ public class EventServiceImpl implements EventService {
         }
 
         if (updateEventUserRequest.getCategory() != null) {
-            event.setCategory(categoryService.getCategoryById(updateEventUserRequest.getCategory()));
+            category = categoryService.getById(updateEventUserRequest.getCategory());
+            event.setCategory(categoryService.getCategoryReference(category.getId()));
         }
 
         if (updateEventUserRequest.getDescription() != null) {
@@ -219,39 +252,35 @@ public class EventServiceImpl implements EventService {
             event.setTitle(updateEventUserRequest.getTitle());
         }
 
-        return toEventFullDto(eventRepository.save(event));
+        eventPublisher.publishEvent(new EventChangedEvent(eventId));
+
+        return toEventFullDto(eventRepository.save(event), category);
     }
 
     @Override
     public List<EventShortDto> getEventsByPublic(
             String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart, LocalDateTime rangeEnd,
-            Boolean onlyAvailable, EventSortType sort, Integer from, Integer size, HttpServletRequest request) {
+            Boolean onlyAvailable, Float lat, Float lon, Float radius, EventSortType sort, String cursor,
+            Integer from, Integer size, HttpServletRequest request, HttpServletResponse response) {
 
         checkStartIsBeforeEnd(rangeStart, rangeEnd);
+        checkSearchArea(lat, lon, radius, sort);
 
-        List<Event> events = eventRepository.getEventsByPublic(text, categories, paid, rangeStart, rangeEnd, from, size);
+        List<EventShortProjection> events = eventRepository.getEventsByPublic(text, categories, paid, rangeStart,
+                rangeEnd, onlyAvailable, lat, lon, radius, sort, decodeCursor(cursor, sort), from, size);
 
-        if (events.isEmpty()) {
-            return List.of();
+        if (sort != EventSortType.RELEVANCE && sort != EventSortType.DISTANCE) {
+            setNextCursor(response, events, size, event -> EventCursor.after(event, sort));
         }
 
-        Map<Long, Integer> eventsParticipantLimit = new HashMap<>();
-        events.forEach(event -> eventsParticipantLimit.put(event.getId(), event.getParticipantLimit()));
-
-        List<EventShortDto> eventsShortDto = toEventsShortDto(events);
-
-        if (onlyAvailable) {
-            eventsShortDto = eventsShortDto.stream()
-                    .filter(eventShort -> (eventsParticipantLimit.get(eventShort.getId()) == 0 ||
-                            eventsParticipantLimit.get(eventShort.getId()) > eventShort.getConfirmedRequests()))
-                    .collect(Collectors.toList());
+        if (events.isEmpty()) {
+            return List.of();
         }
 
-        if (needSort(sort, EventSortType.VIEWS)) {
-            eventsShortDto.sort(Comparator.comparing(EventShortDto::getViews));
-        } else if (needSort(sort, EventSortType.EVENT_DATE)) {
-            eventsShortDto.sort(Comparator.comparing(EventShortDto::getEventDate));
-        }
+        // Pages sorted by views show the synchronized views they are ordered and paged by
+        List<EventShortDto> eventsShortDto = sort == EventSortType.VIEWS ? events.stream()
+                .map(event -> eventMapper.toEventShortDto(event, event.getViews()))
+                .collect(Collectors.toList()) : projectionsToEventsShortDto(events);
 
         statsService.addHit(request);
 
@@ -290,25 +319,45 @@ public class EventServiceImpl implements EventService {
     @Override
     public List<EventShortDto> toEventsShortDto(List<Event> events) {
         Map<Long, Long> views = statsService.getViews(events);
-        Map<Long, Long> confirmedRequests = statsService.getConfirmedRequests(events);
 
         return events.stream()
-                .map((event) -> eventMapper.toEventShortDto(
-                        event,
-                        confirmedRequests.getOrDefault(event.getId(), 0L),
-                        views.getOrDefault(event.getId(), 0L)))
+                .map((event) -> eventMapper.toEventShortDto(event, views.getOrDefault(event.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<EventShortDto> getEventsShortDtoByIds(List<Long> eventsId) {
+        if (eventsId.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, EventShortProjection> events = eventRepository.findShortProjectionsByIdIn(eventsId).stream()
+                .collect(Collectors.toMap(EventShortProjection::getId, Function.identity()));
+
+        return projectionsToEventsShortDto(eventsId.stream()
+                .map(events::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    private List<EventShortDto> projectionsToEventsShortDto(List<EventShortProjection> events) {
+        Map<Long, LocalDateTime> publishedOn = new HashMap<>();
+        events.stream()
+                .filter(event -> event.getPublishedOn() != null)
+                .forEach(event -> publishedOn.put(event.getId(), event.getPublishedOn()));
+
+        Map<Long, Long> views = statsService.getViews(publishedOn);
+
+        return events.stream()
+                .map((event) -> eventMapper.toEventShortDto(event, views.getOrDefault(event.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
     private List<EventFullDto> toEventsFullDto(List<Event> events) {
         Map<Long, Long> views = statsService.getViews(events);
-        Map<Long, Long> confirmedRequests = statsService.getConfirmedRequests(events);
 
         return events.stream()
-                .map((event) -> eventMapper.toEventFullDto(
-                        event,
-                        confirmedRequests.getOrDefault(event.getId(), 0L),
-                        views.getOrDefault(event.getId(), 0L)))
+                .map((event) -> eventMapper.toEventFullDto(event, views.getOrDefault(event.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
@@ -316,6 +365,22 @@ public class EventServiceImpl implements EventService {
         return toEventsFullDto(List.of(event)).get(0);
     }
 
+    /**
+     * Maps an event whose category may be an unloaded reference, taking its name from the cached one
+     * when it was changed.
+     */
+    private EventFullDto toEventFullDto(Event event, CategoryDto category) {
+        if (category == null) {
+            return toEventFullDto(event);
+        }
+        return toEventFullDto(event, userMapper.toUserShortDto(event.getInitiator()), category);
+    }
+
+    private EventFullDto toEventFullDto(Event event, UserShortDto initiator, CategoryDto category) {
+        Long views = statsService.getViews(List.of(event)).getOrDefault(event.getId(), 0L);
+        return eventMapper.toEventFullDto(event, views, initiator, category);
+    }
+
     private Event getEventByIdAndInitiatorId(Long eventId, Long userId) {
         return eventRepository.findByIdAndInitiatorId(eventId, userId)
                 .orElseThrow(() -> new NotFoundException("No event with id " + eventId));
@@ -323,12 +388,20 @@ public class EventServiceImpl implements EventService {
 
     private Location getOrSaveLocation(LocationDto locationDto) {
         Location newLocation = locationMapper.toLocation(locationDto);
-        return locationRepository.findByLatAndLon(newLocation.getLat(), newLocation.getLon())
+        return locationRepository.findByGeohashAndLatAndLon(newLocation.getGeohash(), newLocation.getLat(),
+                        newLocation.getLon())
                 .orElseGet(() -> locationRepository.save(newLocation));
     }
 
-    private Boolean needSort(EventSortType sort, EventSortType typeToCompare) {
-        return sort != null && sort.equals(typeToCompare);
+    private EventCursor decodeCursor(String cursor, EventSortType sort) {
+        return cursor == null ? null : EventCursor.decode(cursor, sort);
+    }
+
+    private <T> void setNextCursor(HttpServletResponse response, List<T> events, Integer size,
+                                   Function<T, EventCursor> toCursor) {
+        if (!events.isEmpty() && events.size() == size) {
+            response.setHeader(EventCursor.HEADER, toCursor.apply(events.get(events.size() - 1)).encode());
+        }
     }
 
     private void checkStartIsBeforeEnd(LocalDateTime rangeStart, LocalDateTime rangeEnd) {
@@ -337,6 +410,18 @@ public class EventServiceImpl implements EventService {
         }
     }
 
+    private void checkSearchArea(Float lat, Float lon, Float radius, EventSortType sort) {
+        boolean hasArea = lat != null && lon != null && radius != null;
+
+        if (!hasArea && (lat != null || lon != null || radius != null)) {
+            throw new WrongSearchAreaException("Parameters lat, lon and radius must be set together");
+        }
+
+        if (!hasArea && sort == EventSortType.DISTANCE) {
+            throw new WrongSearchAreaException("Sort DISTANCE requires lat, lon and radius");
+        }
+    }
+
     private void checkNewEventDate(LocalDateTime newEventDate, LocalDateTime minTimeBeforeEventStart) {
         if (newEventDate != null && newEventDate.isBefore(minTimeBeforeEventStart)) {
             throw new WrongDateIntervalException(String.format("Wrong date interval: " + newEventDate));
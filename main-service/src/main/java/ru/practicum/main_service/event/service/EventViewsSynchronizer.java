@@ -0,0 +1,80 @@
+package ru.practicum.main_service.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main_service.event.dto.EventPublicationProjection;
+import ru.practicum.main_service.event.enums.EventState;
+import ru.practicum.main_service.event.repository.EventRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copies view counts of published events from the stats server into events.views,
+ * which public search uses to sort and paginate by popularity in the database. Events sorted by views
+ * also show this copy, so the views of such a page lag behind the stats server by up to one interval.
+ * Only events that have not taken place yet are kept current, as public search lists those by default:
+ * the copy of a past event keeps the count it had on its event date.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventViewsSynchronizer {
+    private final EventRepository eventRepository;
+    private final StatsService statsService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${events.views.sync.enabled:true}")
+    private boolean enabled;
+
+    @Value("${events.views.sync.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${events.views.sync.interval-ms:60000}")
+    public void synchronize() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long lastId = 0;
+        int updated = 0;
+
+        try {
+            List<EventPublicationProjection> events;
+            do {
+                events = eventRepository.findPublicationsByStateAndEventDateFrom(EventState.PUBLISHED, now, lastId,
+                        PageRequest.of(0, batchSize));
+                if (events.isEmpty()) {
+                    break;
+                }
+
+                Map<Long, LocalDateTime> publishedOn = new HashMap<>();
+                events.forEach(event -> publishedOn.put(event.getId(), event.getPublishedOn()));
+                updated += updateViews(publishedOn.keySet(), statsService.loadViews(publishedOn));
+                lastId = events.get(events.size() - 1).getId();
+            } while (events.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Failed to synchronize event views: {}", e.getMessage());
+        }
+
+        if (updated > 0) {
+            log.info("Updated views of {} events", updated);
+        }
+    }
+
+    private int updateViews(Set<Long> eventIds, Map<Long, Long> views) {
+        Integer updated = transactionTemplate.execute(status -> eventIds.stream()
+                .mapToInt(eventId -> eventRepository.updateViews(eventId, views.getOrDefault(eventId, 0L)))
+                .sum());
+        return updated == null ? 0 : updated;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.main_service.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main_service.event.model.GeoHash;
+import ru.practicum.main_service.event.model.Location;
+import ru.practicum.main_service.event.repository.LocationRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Computes the geohash of locations stored before the column existed, which schema.sql adds as nullable,
+ * and then makes the column NOT NULL. On an up-to-date database it finds nothing to fill.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LocationGeohashBackfill {
+    private final LocationRepository locationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${locations.geohash.backfill-batch-size:500}")
+    private int batchSize;
+
+    @PostConstruct
+    public void backfill() {
+        int filled = 0;
+        List<Location> locations;
+        do {
+            // Filled locations drop out of the query, so every batch is read from the first page
+            locations = transactionTemplate.execute(status -> {
+                List<Location> batch = locationRepository.findAllByGeohashIsNull(PageRequest.of(0, batchSize));
+                batch.forEach(location -> location.setGeohash(GeoHash.encode(location.getLat(), location.getLon())));
+                return batch;
+            });
+            filled += locations == null ? 0 : locations.size();
+        } while (locations != null && locations.size() == batchSize);
+
+        transactionTemplate.executeWithoutResult(status -> locationRepository.requireGeohash());
+        if (filled > 0) {
+            log.info("Computed the geohash of {} locations", filled);
+        }
+    }
+}
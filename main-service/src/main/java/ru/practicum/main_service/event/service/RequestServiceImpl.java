@@ -2,6 +2,7 @@ package ru.practicum.main_service.event.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.main_service.event.dto.EventRequestStatusUpdateRequest;
@@ -12,11 +13,12 @@ import ru.practicum.main_service.event.enums.RequestStatus;
 import ru.practicum.main_service.event.enums.RequestStatusAction;
 import ru.practicum.main_service.event.mapper.RequestMapper;
 import ru.practicum.main_service.event.model.Event;
+import ru.practicum.main_service.event.model.EventChangedEvent;
 import ru.practicum.main_service.event.model.Request;
+import ru.practicum.main_service.event.repository.EventRepository;
 import ru.practicum.main_service.event.repository.RequestRepository;
 import ru.practicum.main_service.exception.ForbiddenException;
 import ru.practicum.main_service.exception.NotFoundException;
-import ru.practicum.main_service.user.model.User;
 import ru.practicum.main_service.user.service.UserService;
 
 import java.time.LocalDateTime;
@@ -33,13 +35,14 @@ import java.util.stream.Collectors;
 public class RequestServiceImpl implements RequestService {
     private final UserService userService;
     private final EventService eventService;
-    private final StatsService statsService;
+    private final EventRepository eventRepository;
     private final RequestRepository requestRepository;
     private final RequestMapper requestMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<ParticipationRequestDto> getEventRequestsByRequester(Long userId) {
-        userService.getUserById(userId);
+        userService.getById(userId);
 
         return toParticipationRequestsDto(requestRepository.findAllByRequesterId(userId));
     }
@@ -47,7 +50,7 @@ public class RequestServiceImpl implements RequestService {
     @Override
     @Transactional
     public ParticipationRequestDto createEventRequest(Long userId, Long eventId) {
-        User user = userService.getUserById(userId);
+        userService.getById(userId);
         Event event = eventService.getEventById(eventId);
 
         if (Objects.equals(event.getInitiator().getId(), userId)) {
@@ -64,19 +67,17 @@ public class RequestServiceImpl implements RequestService {
             throw new ForbiddenException("To many same requests");
         }
 
-        checkIsNewLimitGreaterOld(
-                statsService.getConfirmedRequests(List.of(event)).getOrDefault(eventId, 0L) + 1,
-                event.getParticipantLimit()
-        );
+        checkIsNewLimitGreaterOld(event.getConfirmedRequests() + 1, event.getParticipantLimit());
 
         Request newRequest = Request.builder()
                 .event(event)
-                .requester(user)
+                .requester(userService.getUserReference(userId))
                 .created(LocalDateTime.now())
                 .build();
 
         if (!event.getRequestModeration() || event.getParticipantLimit() == 0) {
             newRequest.setStatus(RequestStatus.CONFIRMED);
+            reserveConfirmedRequests(event, 1L);
         } else {
             newRequest.setStatus(RequestStatus.PENDING);
         }
@@ -87,13 +88,18 @@ public class RequestServiceImpl implements RequestService {
     @Override
     @Transactional
     public ParticipationRequestDto cancelEventRequest(Long userId, Long requestId) {
-        userService.getUserById(userId);
+        userService.getById(userId);
 
         Request request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("No request with id " + requestId));
 
         checkUserIsOwner(request.getRequester().getId(), userId);
 
+        if (request.getStatus().equals(RequestStatus.CONFIRMED)) {
+            eventRepository.addConfirmedRequests(request.getEvent().getId(), -1L);
+            eventPublisher.publishEvent(new EventChangedEvent(request.getEvent().getId()));
+        }
+
         request.setStatus(RequestStatus.CANCELED);
 
         return requestMapper.toParticipationRequestDto(requestRepository.save(request));
@@ -101,7 +107,7 @@ public class RequestServiceImpl implements RequestService {
 
     @Override
     public List<ParticipationRequestDto> getEventRequestsByEventOwner(Long userId, Long eventId) {
-        userService.getUserById(userId);
+        userService.getById(userId);
         Event event = eventService.getEventById(eventId);
 
         checkUserIsOwner(event.getInitiator().getId(), userId);
@@ -113,7 +119,7 @@ public class RequestServiceImpl implements RequestService {
     @Transactional
     public EventRequestStatusUpdateResult patchEventRequestsByEventOwner(
             Long userId, Long eventId, EventRequestStatusUpdateRequest eventRequestStatusUpdateRequest) {
-        userService.getUserById(userId);
+        userService.getById(userId);
         Event event = eventService.getEventById(eventId);
 
         checkUserIsOwner(event.getInitiator().getId(), userId);
@@ -133,6 +139,11 @@ public class RequestServiceImpl implements RequestService {
             throw new NotFoundException("Requests not found");
         }
 
+        if (!requests.stream()
+                .allMatch(request -> Objects.equals(request.getEvent().getId(), eventId))) {
+            throw new NotFoundException("Requests not found for event " + eventId);
+        }
+
         if (!requests.stream()
                 .map(Request::getStatus)
                 .allMatch(RequestStatus.PENDING::equals)) {
@@ -142,14 +153,11 @@ public class RequestServiceImpl implements RequestService {
         if (eventRequestStatusUpdateRequest.getStatus().equals(RequestStatusAction.REJECTED)) {
             rejectedList.addAll(changeStatusAndSave(requests, RequestStatus.REJECTED));
         } else {
-            Long newConfirmedRequests = statsService.getConfirmedRequests(List.of(event)).getOrDefault(eventId, 0L) +
-                    eventRequestStatusUpdateRequest.getRequestIds().size();
-
-            checkIsNewLimitGreaterOld(newConfirmedRequests, event.getParticipantLimit());
+            reserveConfirmedRequests(event, (long) requests.size());
 
             confirmedList.addAll(changeStatusAndSave(requests, RequestStatus.CONFIRMED));
 
-            if (newConfirmedRequests >= event.getParticipantLimit()) {
+            if (eventRepository.getConfirmedRequests(eventId) >= event.getParticipantLimit()) {
                 rejectedList.addAll(changeStatusAndSave(
                         requestRepository.findAllByEventIdAndStatus(eventId, RequestStatus.PENDING),
                         RequestStatus.REJECTED)
@@ -172,6 +180,13 @@ public class RequestServiceImpl implements RequestService {
         return requestRepository.saveAll(requests);
     }
 
+    private void reserveConfirmedRequests(Event event, Long count) {
+        if (eventRepository.reserveConfirmedRequests(event.getId(), count) == 0) {
+            throw new ForbiddenException(String.format("Limit exceeded: " + event.getParticipantLimit()));
+        }
+        eventPublisher.publishEvent(new EventChangedEvent(event.getId()));
+    }
+
     private void checkIsNewLimitGreaterOld(Long newLimit, Integer eventParticipantLimit) {
         if (eventParticipantLimit != 0 && (newLimit > eventParticipantLimit)) {
             throw new ForbiddenException(String.format("Limit exceeded: " + eventParticipantLimit));
@@ -15,5 +15,7 @@ public interface StatsService {
 
     Map<Long, Long> getViews(List<Event> events);
 
-    Map<Long, Long> getConfirmedRequests(List<Event> events);
+    Map<Long, Long> getViews(Map<Long, LocalDateTime> publishedOn);
+
+    Map<Long, Long> loadViews(Map<Long, LocalDateTime> publishedOn);
 }
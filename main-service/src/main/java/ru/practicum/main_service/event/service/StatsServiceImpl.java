@@ -1,27 +1,31 @@
 package ru.practicum.main_service.event.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.main_service.event.model.Event;
-import ru.practicum.main_service.event.repository.RequestRepository;
 import ru.practicum.stats_client.StatsClient;
+import ru.practicum.stats_client.StatsHitBuffer;
+import ru.practicum.stats_common.model.EndpointHit;
 import ru.practicum.stats_common.model.ViewStats;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
-import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,51 +33,95 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 @Slf4j
 public class StatsServiceImpl implements StatsService {
+    private static final Pattern EVENT_URI = Pattern.compile("^/events/(\\d+)$");
+
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private final StatsClient statsClient;
-    private final RequestRepository requestRepository;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final StatsHitBuffer statsHitBuffer;
+    private final MeterRegistry meterRegistry;
+    private Cache<Long, Long> viewsCache;
 
     @Value(value = "${app.name}")
     private String appName;
 
+    @Value(value = "${stats.views.approximate:false}")
+    private Boolean approximateViews;
+
+    @Value(value = "${stats.views.cache.enabled:true}")
+    private Boolean viewsCacheEnabled;
+
+    @Value(value = "${stats.views.cache.max-size:10000}")
+    private Long viewsCacheMaxSize;
+
+    @Value(value = "${stats.views.cache.ttl-ms:5000}")
+    private Long viewsCacheTtlMs;
+
+    @PostConstruct
+    public void initViewsCache() {
+        viewsCache = Caffeine.newBuilder()
+                .maximumSize(viewsCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(viewsCacheTtlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, viewsCache, "eventViews");
+        statsHitBuffer.addSentListener(this::evictViews);
+    }
+
     @Override
     public void addHit(HttpServletRequest request) {
-        statsClient.addHit(appName, request.getRequestURI(), request.getRemoteAddr(),
+        statsHitBuffer.add(appName, request.getRequestURI(), request.getRemoteAddr(),
                 LocalDateTime.parse(LocalDateTime.now().format(formatter), formatter));
     }
 
     @Override
     public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
-        ResponseEntity<Object> response = statsClient.getStats(start, end, uris, unique);
-
-        try {
-            return Arrays.asList(mapper.readValue(mapper.writeValueAsString(response.getBody()), ViewStats[].class));
-        } catch (IOException exception) {
-            throw new ClassCastException(exception.getMessage());
-        }
+        return statsClient.getViewStats(start, end, uris, unique, approximateViews);
     }
 
     @Override
     public Map<Long, Long> getViews(List<Event> events) {
+        return getViews(getPublishedOn(events));
+    }
+
+    @Override
+    public Map<Long, Long> getViews(Map<Long, LocalDateTime> publishedOn) {
         Map<Long, Long> views = new HashMap<>();
+        Map<Long, LocalDateTime> misses = new HashMap<>();
+
+        publishedOn.forEach((eventId, published) -> {
+            Long cached = viewsCacheEnabled ? viewsCache.getIfPresent(eventId) : null;
+            if (cached == null) {
+                misses.put(eventId, published);
+            } else if (cached > 0) {
+                views.put(eventId, cached);
+            }
+        });
+
+        if (misses.isEmpty()) {
+            return views;
+        }
 
-        List<Event> publishedEvents = getPublished(events);
+        Map<Long, Long> loaded = loadViews(misses);
+        views.putAll(loaded);
 
-        if (events.isEmpty()) {
-            return views;
+        if (viewsCacheEnabled) {
+            misses.keySet().forEach(eventId -> viewsCache.put(eventId, loaded.getOrDefault(eventId, 0L)));
         }
 
-        Optional<LocalDateTime> minPublishedOn = publishedEvents.stream()
-                .map(Event::getPublishedOn)
-                .filter(Objects::nonNull)
+        return views;
+    }
+
+    @Override
+    public Map<Long, Long> loadViews(Map<Long, LocalDateTime> publishedOn) {
+        Map<Long, Long> views = new HashMap<>();
+
+        Optional<LocalDateTime> minPublishedOn = publishedOn.values().stream()
                 .min(LocalDateTime::compareTo);
 
         if (minPublishedOn.isPresent()) {
             LocalDateTime start = minPublishedOn.get();
             LocalDateTime end = LocalDateTime.now();
-            List<String> uris = publishedEvents.stream()
-                    .map(Event::getId)
+            List<String> uris = publishedOn.keySet().stream()
                     .map(id -> ("/events/" + id))
                     .collect(Collectors.toList());
 
@@ -88,25 +136,24 @@ public class StatsServiceImpl implements StatsService {
         return views;
     }
 
-    @Override
-    public Map<Long, Long> getConfirmedRequests(List<Event> events) {
-        List<Long> eventsId = getPublished(events).stream()
-                .map(Event::getId)
-                .collect(Collectors.toList());
-
-        Map<Long, Long> requestStats = new HashMap<>();
-
-        if (!eventsId.isEmpty()) {
-            requestRepository.getConfirmedRequests(eventsId)
-                    .forEach(stat -> requestStats.put(stat.getEventId(), stat.getConfirmedRequests()));
+    /**
+     * Evicts cached views of events whose hits the stats server has just accepted. Evicting when a hit is
+     * only enqueued would let a read in between cache the old count again until the ttl runs out.
+     */
+    private void evictViews(List<EndpointHit> hits) {
+        for (EndpointHit hit : hits) {
+            Matcher matcher = EVENT_URI.matcher(hit.getUri());
+            if (matcher.matches()) {
+                viewsCache.invalidate(Long.parseLong(matcher.group(1)));
+            }
         }
-
-        return requestStats;
     }
 
-    private List<Event> getPublished(List<Event> events) {
-        return events.stream()
+    private Map<Long, LocalDateTime> getPublishedOn(List<Event> events) {
+        Map<Long, LocalDateTime> publishedOn = new HashMap<>();
+        events.stream()
                 .filter(event -> event.getPublishedOn() != null)
-                .collect(Collectors.toList());
+                .forEach(event -> publishedOn.put(event.getId(), event.getPublishedOn()));
+        return publishedOn;
     }
 }
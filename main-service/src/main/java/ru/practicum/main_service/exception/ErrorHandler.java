@@ -101,6 +101,28 @@ public class ErrorHandler {
                 LocalDateTime.now().format(formatter));
     }
 
+    @ExceptionHandler(WrongCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiError handleWrongCursorException(final WrongCursorException exception) {
+        log.error(exception.toString());
+        return new ApiError(HttpStatus.BAD_REQUEST.name(),
+                "Incorrectly made request: wrong cursor",
+                exception.getMessage(),
+                getErrors(exception),
+                LocalDateTime.now().format(formatter));
+    }
+
+    @ExceptionHandler(WrongSearchAreaException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiError handleWrongSearchAreaException(final WrongSearchAreaException exception) {
+        log.error(exception.toString());
+        return new ApiError(HttpStatus.BAD_REQUEST.name(),
+                "Incorrectly made request: wrong search area",
+                exception.getMessage(),
+                getErrors(exception),
+                LocalDateTime.now().format(formatter));
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ApiError handleException(final RuntimeException exception) {
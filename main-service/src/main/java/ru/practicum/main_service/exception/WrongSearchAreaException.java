@@ -0,0 +1,7 @@
+package ru.practicum.main_service.exception;
+
+public class WrongSearchAreaException extends RuntimeException {
+    public WrongSearchAreaException(String message) {
+        super(message);
+    }
+}
@@ -13,4 +13,6 @@ public interface UserMapper {
     UserDto toUserDto(User user);
 
     UserShortDto toUserShortDto(User user);
+
+    UserShortDto toUserShortDto(UserDto userDto);
 }
@@ -14,5 +14,13 @@ public interface UserService {
 
     void deleteById(Long id);
 
+    UserDto getById(Long id);
+
     User getUserById(Long id);
+
+    /**
+     * Returns a lazy reference for an id already checked with {@link #getById}, so that linking
+     * the user to another entity costs no select. Reading other fields of the reference loads it.
+     */
+    User getUserReference(Long id);
 }
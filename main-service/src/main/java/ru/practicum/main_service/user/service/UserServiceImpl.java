@@ -2,6 +2,10 @@ package ru.practicum.main_service.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,6 +14,7 @@ import ru.practicum.main_service.user.dto.UserDto;
 import ru.practicum.main_service.exception.NotFoundException;
 import ru.practicum.main_service.user.mapper.UserMapper;
 import ru.practicum.main_service.user.model.User;
+import ru.practicum.main_service.user.model.UserChangedEvent;
 import ru.practicum.main_service.user.repository.UserRepository;
 
 import java.util.List;
@@ -19,9 +24,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 @Slf4j
+@CacheConfig(cacheNames = "users")
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -44,11 +51,19 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional
+    @CacheEvict(key = "#id")
     public void deleteById(Long id) {
         userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("No such user id " + id));
 
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
+    }
+
+    @Override
+    @Cacheable(key = "#id")
+    public UserDto getById(Long id) {
+        return userMapper.toUserDto(getUserById(id));
     }
 
     @Override
@@ -56,4 +71,9 @@ public class UserServiceImpl implements UserService {
         return userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("No such user id " + id));
     }
+
+    @Override
+    public User getUserReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
 }
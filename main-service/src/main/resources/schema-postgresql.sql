@@ -0,0 +1,15 @@
+-- PostgreSQL-only indexes, run after schema.sql when spring.sql.init.platform=postgresql
+
+CREATE INDEX IF NOT EXISTS locations_geohash_idx ON locations (geohash varchar_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS events_state_views_idx ON events (state, views DESC, id);
+CREATE INDEX IF NOT EXISTS events_state_event_date_idx ON events (state, event_date, id);
+CREATE INDEX IF NOT EXISTS events_available_event_date_idx ON events (event_date, id)
+    WHERE participant_limit = 0 OR confirmed_requests < participant_limit;
+CREATE INDEX IF NOT EXISTS events_text_search_idx ON events
+    USING GIN (to_tsvector('simple', annotation || ' ' || description));
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS events_annotation_trgm_idx ON events USING GIN (lower(annotation) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS events_description_trgm_idx ON events USING GIN (lower(description) gin_trgm_ops);
@@ -1,12 +1,3 @@
-DROP TABLE IF EXISTS compilations_events;
-DROP TABLE IF EXISTS comments;
-DROP TABLE IF EXISTS requests;
-DROP TABLE IF EXISTS events;
-DROP TABLE IF EXISTS compilations;
-DROP TABLE IF EXISTS users;
-DROP TABLE IF EXISTS locations;
-DROP TABLE IF EXISTS categories;
-
 CREATE TABLE IF NOT EXISTS users
 (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -24,7 +15,8 @@ CREATE TABLE IF NOT EXISTS locations
 (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     lat REAL NOT NULL,
-    lon REAL NOT NULL
+    lon REAL NOT NULL,
+    geohash VARCHAR(12) NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS events
@@ -40,11 +32,15 @@ CREATE TABLE IF NOT EXISTS events
     request_moderation BOOLEAN NOT NULL,
     state VARCHAR(255) NOT NULL,
     title VARCHAR(120) NOT NULL,
+    confirmed_requests BIGINT NOT NULL DEFAULT 0,
+    views BIGINT NOT NULL DEFAULT 0,
     category_id BIGINT REFERENCES categories (id),
     user_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
     location_id BIGINT REFERENCES locations (id)
 );
 
+CREATE INDEX IF NOT EXISTS events_location_idx ON events (location_id);
+
 CREATE TABLE IF NOT EXISTS requests
 (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -75,4 +71,20 @@ CREATE TABLE IF NOT EXISTS comments
     text VARCHAR(7000) NOT NULL,
     author_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
     event_id BIGINT REFERENCES events (id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+-- Columns added after the first release: databases created before them get them here, backfilled before
+-- they become NOT NULL. Existing locations get their geohash from LocationGeohashBackfill on startup.
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS geohash VARCHAR(12);
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT;
+UPDATE events SET confirmed_requests =
+    (SELECT COUNT(*) FROM requests AS r WHERE r.event_id = events.id AND r.status = 'CONFIRMED')
+    WHERE confirmed_requests IS NULL;
+ALTER TABLE events ALTER COLUMN confirmed_requests SET DEFAULT 0;
+ALTER TABLE events ALTER COLUMN confirmed_requests SET NOT NULL;
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS views BIGINT;
+UPDATE events SET views = 0 WHERE views IS NULL;
+ALTER TABLE events ALTER COLUMN views SET DEFAULT 0;
+ALTER TABLE events ALTER COLUMN views SET NOT NULL;
@@ -0,0 +1,80 @@
+package ru.practicum.main_service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.main_service.category.dto.NewCategoryDto;
+import ru.practicum.main_service.category.service.CategoryService;
+import ru.practicum.main_service.event.dto.LocationDto;
+import ru.practicum.main_service.event.dto.NewEventDto;
+import ru.practicum.main_service.event.dto.UpdateEventAdminRequest;
+import ru.practicum.main_service.event.enums.EventStateAction;
+import ru.practicum.main_service.event.service.EventService;
+import ru.practicum.main_service.user.dto.NewUserRequest;
+import ru.practicum.main_service.user.service.UserService;
+import ru.practicum.stats_client.StatsClient;
+import ru.practicum.stats_client.StatsHitBuffer;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Boots the whole service on H2 with the stats server mocked out. The context and the database are shared
+ * between test classes, so fixtures get unique names and assertions only look at their own rows.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class IntegrationTest {
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected UserService userService;
+
+    @Autowired
+    protected CategoryService categoryService;
+
+    @Autowired
+    protected EventService eventService;
+
+    @MockBean
+    protected StatsClient statsClient;
+
+    @MockBean
+    protected StatsHitBuffer statsHitBuffer;
+
+    protected static String unique() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    protected Long createUser() {
+        return userService.create(new NewUserRequest(unique() + "@mail.ru", "User")).getId();
+    }
+
+    protected Long createCategory() {
+        return categoryService.create(new NewCategoryDto("Category " + unique())).getId();
+    }
+
+    protected Long createPublishedEvent(Long userId, Long categoryId, String annotation, int participantLimit,
+                                        boolean requestModeration) {
+        Long eventId = eventService.createEventByPrivate(userId, NewEventDto.builder()
+                .annotation(annotation)
+                .category(categoryId)
+                .description("Description of the event that is long enough")
+                .eventDate(LocalDateTime.now().plusDays(10))
+                .location(new LocationDto(55.75f, 37.62f))
+                .paid(false)
+                .participantLimit(participantLimit)
+                .requestModeration(requestModeration)
+                .title("Event")
+                .build()).getId();
+        eventService.patchEventByAdmin(eventId, UpdateEventAdminRequest.builder()
+                .stateAction(EventStateAction.PUBLISH_EVENT)
+                .build());
+        return eventId;
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.main_service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.practicum.main_service.event.model.GeoHash;
+import ru.practicum.main_service.event.service.LocationGeohashBackfill;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchemaUpgradeTest extends IntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private LocationGeohashBackfill locationGeohashBackfill;
+
+    @Test
+    void columnsMissingFromAnOlderDatabaseAreAddedAndBackfilled() {
+        Long eventId = createPublishedEvent(createUser(), createCategory(), "Event of an older database", 0, true);
+        addRequest(eventId, createUser(), "CONFIRMED");
+        addRequest(eventId, createUser(), "CONFIRMED");
+        addRequest(eventId, createUser(), "PENDING");
+        jdbcTemplate.execute("ALTER TABLE events DROP COLUMN confirmed_requests");
+        jdbcTemplate.execute("ALTER TABLE events DROP COLUMN views");
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?",
+                Long.class, eventId));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT views FROM events WHERE id = ?", Long.class, eventId));
+        assertEquals("NO", nullable("events", "confirmed_requests"));
+        assertEquals("NO", nullable("events", "views"));
+    }
+
+    @Test
+    void locationsWithoutGeohashGetItOnStartup() {
+        jdbcTemplate.execute("ALTER TABLE locations ALTER COLUMN geohash DROP NOT NULL");
+        jdbcTemplate.update("INSERT INTO locations (lat, lon) VALUES (?, ?)", 59.94f, 30.31f);
+        Long locationId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM locations", Long.class);
+
+        locationGeohashBackfill.backfill();
+
+        assertEquals(GeoHash.encode(59.94f, 30.31f), jdbcTemplate.queryForObject(
+                "SELECT geohash FROM locations WHERE id = ?", String.class, locationId));
+        assertEquals("NO", nullable("locations", "geohash"));
+    }
+
+    private void addRequest(Long eventId, Long requesterId, String status) {
+        jdbcTemplate.update("INSERT INTO requests (created, status, event_id, requester_id) VALUES (?, ?, ?, ?)",
+                LocalDateTime.now(), status, eventId, requesterId);
+    }
+
+    private String nullable(String table, String column) {
+        return jdbcTemplate.queryForObject("SELECT is_nullable FROM information_schema.columns " +
+                "WHERE lower(table_name) = ? AND lower(column_name) = ?", String.class, table, column);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.main_service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.main_service.compilation.dto.NewCompilationDto;
+import ru.practicum.main_service.compilation.service.CompilationService;
+import ru.practicum.main_service.config.StatementCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Fails when a listing endpoint issues SQL per returned row. Every listing is read once with one row and once
+ * with a full page, and both must take the same number of statements, within the budget. The budget
+ * interceptor stays off in tests, otherwise it would reset the counter after each request.
+ */
+class StatementBudgetTest extends IntegrationTest {
+    private static final int EVENTS = 6;
+    private static final int MAX_STATEMENTS = 3;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private CompilationService compilationService;
+
+    private Long ownerId;
+    private Long categoryId;
+    private final List<Long> eventIds = new ArrayList<>();
+
+    @BeforeEach
+    void createEvents() {
+        ownerId = createUser();
+        categoryId = createCategory();
+        for (int i = 0; i < EVENTS; i++) {
+            eventIds.add(createPublishedEvent(ownerId, categoryId, "Event for the statement budget " + i, 0, true));
+        }
+    }
+
+    @Test
+    void publicEventListingDoesNotQueryPerEvent() throws Exception {
+        assertFlat(size -> get("/events")
+                .param("categories", categoryId.toString())
+                .param("size", size.toString()));
+    }
+
+    @Test
+    void adminEventListingDoesNotQueryPerEvent() throws Exception {
+        assertFlat(size -> get("/admin/events")
+                .param("users", ownerId.toString())
+                .param("size", size.toString()));
+    }
+
+    @Test
+    void privateEventListingDoesNotQueryPerEvent() throws Exception {
+        assertFlat(size -> get("/users/{userId}/events", ownerId)
+                .param("size", size.toString()));
+    }
+
+    @Test
+    void compilationListingDoesNotQueryPerCompilationOrEvent() throws Exception {
+        compilationService.create(new NewCompilationDto("Compilation " + unique(), false, eventIds.subList(0, 1)));
+        int few = statements(get("/compilations").param("size", "100"));
+
+        for (int i = 0; i < EVENTS; i++) {
+            compilationService.create(new NewCompilationDto("Compilation " + unique(), true, eventIds));
+        }
+        int many = statements(get("/compilations").param("size", "100"));
+
+        assertEquals(few, many);
+        assertTrue(many <= MAX_STATEMENTS, "Compilation listing issued " + many + " statements");
+        assertEquals(0, statements(get("/compilations").param("size", "100")));
+    }
+
+    private void assertFlat(PageRequest request) throws Exception {
+        // Warms the user and category caches, which would otherwise add a lookup to the first call only
+        statements(request.of(EVENTS));
+        int one = statements(request.of(1));
+        int page = statements(request.of(EVENTS));
+
+        assertEquals(one, page);
+        assertTrue(page <= MAX_STATEMENTS, "Listing issued " + page + " statements");
+    }
+
+    private int statements(MockHttpServletRequestBuilder request) throws Exception {
+        statementCounter.reset();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return statementCounter.get();
+    }
+
+    private interface PageRequest {
+        MockHttpServletRequestBuilder of(Integer size);
+    }
+}
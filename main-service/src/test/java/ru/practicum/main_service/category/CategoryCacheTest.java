@@ -0,0 +1,87 @@
+package ru.practicum.main_service.category;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main_service.IntegrationTest;
+import ru.practicum.main_service.category.dto.CategoryDto;
+import ru.practicum.main_service.comment.dto.CommentDto;
+import ru.practicum.main_service.comment.dto.NewCommentDto;
+import ru.practicum.main_service.comment.service.CommentService;
+import ru.practicum.main_service.event.dto.EventFullDto;
+import ru.practicum.main_service.event.dto.LocationDto;
+import ru.practicum.main_service.event.dto.NewEventDto;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CategoryCacheTest extends IntegrationTest {
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Test
+    void rolledBackPatchDoesNotReachTheCache() {
+        Long catId = createCategory();
+        String name = categoryService.getById(catId).getName();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            categoryService.patch(catId, new CategoryDto(catId, "Renamed " + unique()));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(name, categoryService.getById(catId).getName());
+    }
+
+    @Test
+    void committedPatchReplacesTheCachedCategory() {
+        Long catId = createCategory();
+        categoryService.getById(catId);
+        String renamed = "Renamed " + unique();
+
+        categoryService.patch(catId, new CategoryDto(catId, renamed));
+
+        assertEquals(renamed, categoryService.getById(catId).getName());
+    }
+
+    /**
+     * Renames the user and the category behind the caches' back: responses that still show the cached names
+     * prove that creation checked both in the caches and never loaded the referenced rows.
+     */
+    @Test
+    void eventAndCommentCreationTakeUserAndCategoryFromTheCaches() {
+        Long userId = createUser();
+        Long catId = createCategory();
+        String userName = userService.getById(userId).getName();
+        String categoryName = categoryService.getById(catId).getName();
+        jdbcTemplate.update("UPDATE users SET name = 'Renamed in the database' WHERE id = ?", userId);
+        jdbcTemplate.update("UPDATE categories SET name = ? WHERE id = ?", "Renamed " + unique(), catId);
+
+        EventFullDto event = eventService.createEventByPrivate(userId, NewEventDto.builder()
+                .annotation("Event created from cached user and category")
+                .category(catId)
+                .description("Description of the event that is long enough")
+                .eventDate(LocalDateTime.now().plusDays(10))
+                .location(new LocationDto(55.75f, 37.62f))
+                .paid(false)
+                .participantLimit(0)
+                .requestModeration(true)
+                .title("Event")
+                .build());
+
+        assertEquals(userName, event.getInitiator().getName());
+        assertEquals(categoryName, event.getCategory().getName());
+
+        Long publishedId = createPublishedEvent(userId, catId, "Event to comment on from the cached user", 0, true);
+        CommentDto comment = commentService.createByPrivate(userId, publishedId, new NewCommentDto("Nice event"));
+
+        assertEquals(userName, comment.getAuthor().getName());
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.main_service.compilation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.main_service.IntegrationTest;
+import ru.practicum.main_service.category.dto.CategoryDto;
+import ru.practicum.main_service.compilation.dto.NewCompilationDto;
+import ru.practicum.main_service.compilation.dto.UpdateCompilationRequest;
+import ru.practicum.main_service.compilation.service.CompilationService;
+import ru.practicum.main_service.compilation.service.CompilationViewStore;
+import ru.practicum.main_service.event.service.RequestService;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CompilationViewStoreTest extends IntegrationTest {
+    @Autowired
+    private CompilationService compilationService;
+
+    @Autowired
+    private CompilationViewStore compilationViewStore;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void renamedCategoryOfAnEventInTheSnapshotShowsUpAtOnce() throws Exception {
+        Long userId = createUser();
+        Long catId = createCategory();
+        Long eventId = createPublishedEvent(userId, catId, "Event shown in a cached compilation", 0, true);
+        Long compId = compilationService.create(new NewCompilationDto("Compilation " + unique(), false,
+                List.of(eventId))).getId();
+        String name = categoryService.getById(catId).getName();
+
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[0].category.name").value(name));
+
+        String renamed = "Renamed " + unique();
+        categoryService.patch(catId, new CategoryDto(catId, renamed));
+
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[0].category.name").value(renamed));
+    }
+
+    @Test
+    void createdPatchedAndDeletedCompilationsShowUpAtOnce() throws Exception {
+        Long compId = compilationService.create(new NewCompilationDto("Compilation " + unique(), true,
+                List.of())).getId();
+
+        mockMvc.perform(get("/compilations").param("pinned", "true").param("size", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", hasItem(compId.intValue())));
+
+        String title = "Unpinned " + unique();
+        compilationService.patch(compId, new UpdateCompilationRequest(title, false, null));
+
+        mockMvc.perform(get("/compilations").param("pinned", "true").param("size", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", not(hasItem(compId.intValue()))));
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value(title))
+                .andExpect(jsonPath("$.pinned").value(false));
+
+        compilationService.deleteById(compId);
+
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void confirmedRequestOfAnEventInTheSnapshotShowsUpAtOnce() throws Exception {
+        Long eventId = createPublishedEvent(createUser(), createCategory(), "Event with requests in a compilation",
+                0, false);
+        Long compId = compilationService.create(new NewCompilationDto("Compilation " + unique(), false,
+                List.of(eventId))).getId();
+
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(jsonPath("$.events[0].confirmedRequests").value(0));
+
+        requestService.createEventRequest(createUser(), eventId);
+
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(jsonPath("$.events[0].confirmedRequests").value(1));
+    }
+
+    /**
+     * Changes the compilation behind the store's back, so only a rebuild can show the new title.
+     */
+    @Test
+    void changesOutsideTheSnapshotKeepItUntilTheScheduledRefresh() throws Exception {
+        Long userId = createUser();
+        Long catId = createCategory();
+        String title = "Compilation " + unique();
+        Long compId = compilationService.create(new NewCompilationDto(title, false,
+                List.of(createPublishedEvent(userId, catId, "Event kept in the snapshot", 0, true)))).getId();
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(jsonPath("$.title").value(title));
+
+        String renamed = "Renamed " + unique();
+        jdbcTemplate.update("UPDATE compilations SET title = ? WHERE id = ?", renamed, compId);
+        Long otherEventId = createPublishedEvent(userId, catId, "Event outside of every compilation", 0, false);
+        requestService.createEventRequest(createUser(), otherEventId);
+
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(jsonPath("$.title").value(title));
+
+        compilationViewStore.refresh();
+
+        mockMvc.perform(get("/compilations/{compId}", compId))
+                .andExpect(jsonPath("$.title").value(renamed));
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.main_service.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main_service.IntegrationTest;
+import ru.practicum.main_service.event.repository.EventRepository;
+import ru.practicum.main_service.event.service.ConfirmedRequestsReconciler;
+import ru.practicum.main_service.event.service.RequestService;
+import ru.practicum.main_service.exception.ForbiddenException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConfirmedRequestsTest extends IntegrationTest {
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private ConfirmedRequestsReconciler confirmedRequestsReconciler;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void requestsBeyondTheParticipantLimitAreRejected() throws Exception {
+        Long ownerId = createUser();
+        Long eventId = createPublishedEvent(ownerId, createCategory(), "Event with two places", 2, false);
+        requestService.createEventRequest(createUser(), eventId);
+        requestService.createEventRequest(createUser(), eventId);
+
+        Long lateUserId = createUser();
+        assertThrows(ForbiddenException.class, () -> requestService.createEventRequest(lateUserId, eventId));
+
+        assertEquals(2L, eventRepository.getConfirmedRequests(eventId));
+        mockMvc.perform(get("/users/{userId}/events/{eventId}", ownerId, eventId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.confirmedRequests").value(2));
+    }
+
+    @Test
+    void reservedRequestsAreVisibleLaterInTheSameTransaction() {
+        Long eventId = createPublishedEvent(createUser(), createCategory(), "Event with three places", 3, true);
+
+        Long confirmedRequests = transactionTemplate.execute(status -> {
+            eventRepository.findById(eventId).orElseThrow();
+            eventRepository.reserveConfirmedRequests(eventId, 2L);
+            return eventRepository.findById(eventId).orElseThrow().getConfirmedRequests();
+        });
+
+        assertEquals(2L, confirmedRequests);
+    }
+
+    @Test
+    void reconcilerRepairsAWrongCounter() {
+        Long eventId = createPublishedEvent(createUser(), createCategory(), "Event with a drifted counter", 0, false);
+        requestService.createEventRequest(createUser(), eventId);
+        jdbcTemplate.update("UPDATE events SET confirmed_requests = 5 WHERE id = ?", eventId);
+
+        ReflectionTestUtils.setField(confirmedRequestsReconciler, "enabled", true);
+        try {
+            confirmedRequestsReconciler.reconcile();
+        } finally {
+            ReflectionTestUtils.setField(confirmedRequestsReconciler, "enabled", false);
+        }
+
+        assertEquals(1L, eventRepository.getConfirmedRequests(eventId));
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.main_service.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.main_service.IntegrationTest;
+import ru.practicum.main_service.event.dto.LocationDto;
+import ru.practicum.main_service.event.dto.UpdateEventAdminRequest;
+import ru.practicum.main_service.event.model.GeoHash;
+import ru.practicum.main_service.event.repository.LocationRepository;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EventAreaSearchTest extends IntegrationTest {
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long categoryId;
+
+    @BeforeEach
+    void createOwner() {
+        userId = createUser();
+        categoryId = createCategory();
+    }
+
+    @Test
+    void areaAcrossCellBoundariesFindsEventsInEveryCell() throws Exception {
+        Long northWest = createEventAt(0.0005f, -0.0005f);
+        Long southEast = createEventAt(-0.0005f, 0.0005f);
+        Long nearer = createEventAt(0.0001f, 0.0001f);
+        createEventAt(0.05f, 0.05f);
+
+        assertEquals(4, GeoHash.coveringPrefixes(0.0, 0.0, 1.0).size());
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("lat", "0")
+                        .param("lon", "0")
+                        .param("radius", "1")
+                        .param("sort", "DISTANCE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(nearer.intValue(), northWest.intValue(),
+                        southEast.intValue())));
+    }
+
+    @Test
+    void areaAcrossTheAntimeridianFallsBackToTheDistanceCheck() throws Exception {
+        Long east = createEventAt(10.0f, 179.999f);
+        Long west = createEventAt(10.0f, -179.999f);
+        createEventAt(10.0f, 179.9f);
+
+        assertTrue(GeoHash.coveringPrefixes(10.0, 180.0, 1.0).isEmpty());
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("lat", "10")
+                        .param("lon", "180")
+                        .param("radius", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", containsInAnyOrder(east.intValue(), west.intValue())));
+    }
+
+    @Test
+    void areaAroundAPoleFallsBackToTheDistanceCheck() throws Exception {
+        Long one = createEventAt(89.9995f, 0.0f);
+        Long opposite = createEventAt(89.9995f, 180.0f);
+        createEventAt(89.9f, 0.0f);
+
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("lat", "90")
+                        .param("lon", "0")
+                        .param("radius", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", containsInAnyOrder(one.intValue(), opposite.intValue())));
+    }
+
+    @Test
+    void locationsAreReusedByExactPointWithinTheirCell() {
+        float lat = 43.2567f;
+        float lon = 76.9286f;
+        float nextLat = lat + 0.00001f;
+        String geohash = GeoHash.encode(lat, lon);
+        assertEquals(geohash, GeoHash.encode(nextLat, lon));
+
+        createEventAt(lat, lon);
+        createEventAt(lat, lon);
+        createEventAt(nextLat, lon);
+
+        Long locationId = locationRepository.findByGeohashAndLatAndLon(geohash, lat, lon).orElseThrow().getId();
+        Long nextLocationId = locationRepository.findByGeohashAndLatAndLon(geohash, nextLat, lon).orElseThrow().getId();
+        assertNotEquals(locationId, nextLocationId);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM locations WHERE geohash = ?",
+                Integer.class, geohash));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events WHERE location_id = ?",
+                Integer.class, locationId));
+    }
+
+    private Long createEventAt(float lat, float lon) {
+        Long eventId = createPublishedEvent(userId, categoryId, "Event placed at a given point " + unique(), 0, true);
+        eventService.patchEventByAdmin(eventId, UpdateEventAdminRequest.builder()
+                .location(new LocationDto(lat, lon))
+                .build());
+        return eventId;
+    }
+}
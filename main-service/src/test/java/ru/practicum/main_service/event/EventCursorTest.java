@@ -0,0 +1,132 @@
+package ru.practicum.main_service.event;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.main_service.IntegrationTest;
+import ru.practicum.main_service.event.enums.EventSortType;
+import ru.practicum.main_service.event.model.EventCursor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EventCursorTest extends IntegrationTest {
+    private static final int PAGE_SIZE = 2;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long categoryId;
+    private final List<Long> eventIds = new ArrayList<>();
+
+    @BeforeEach
+    void createEvents() {
+        userId = createUser();
+        categoryId = createCategory();
+
+        LocalDateTime eventDate = LocalDateTime.now().plusDays(10).withNano(0);
+        long[] views = {7, 3, 7, 0, 3};
+        int[] dayOffsets = {2, 0, 1, 1, 0};
+        for (int i = 0; i < views.length; i++) {
+            Long eventId = createPublishedEvent(userId, categoryId, "Event to walk page by page " + unique(), 0, true);
+            jdbcTemplate.update("UPDATE events SET views = ?, event_date = ? WHERE id = ?",
+                    views[i], eventDate.plusDays(dayOffsets[i]), eventId);
+            eventIds.add(eventId);
+        }
+    }
+
+    @Test
+    void cursorWalksEverySortWithoutDuplicatesOrGaps() throws Exception {
+        // ids in creation order: views 7, 3, 7, 0, 3 and event dates +2, +0, +1, +1, +0 days
+        assertEquals(order(0, 1, 2, 3, 4), walk(() -> publicEvents(null)));
+        assertEquals(order(0, 2, 1, 4, 3), walk(() -> publicEvents(EventSortType.VIEWS)));
+        assertEquals(order(1, 4, 2, 3, 0), walk(() -> publicEvents(EventSortType.EVENT_DATE)));
+        assertEquals(order(0, 1, 2, 3, 4), walk(() -> get("/users/{userId}/events", userId)
+                .param("size", String.valueOf(PAGE_SIZE))));
+    }
+
+    @Test
+    void nextCursorIsAbsentOnTheLastPage() throws Exception {
+        MockHttpServletResponse last = mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("size", String.valueOf(eventIds.size() + 1)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals(eventIds.size(), ids(last).size());
+        assertNull(last.getHeader(EventCursor.HEADER));
+    }
+
+    @Test
+    void relevanceAndDistanceRejectACursor() throws Exception {
+        String cursor = mockMvc.perform(publicEvents(null))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(EventCursor.HEADER);
+
+        mockMvc.perform(publicEvents(EventSortType.RELEVANCE))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(EventCursor.HEADER));
+        mockMvc.perform(publicEvents(EventSortType.RELEVANCE).param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(publicEvents(EventSortType.DISTANCE).param("cursor", cursor)
+                        .param("lat", "55.75")
+                        .param("lon", "37.62")
+                        .param("radius", "10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(publicEvents(EventSortType.VIEWS).param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletRequestBuilder publicEvents(EventSortType sort) {
+        MockHttpServletRequestBuilder request = get("/events")
+                .param("categories", categoryId.toString())
+                .param("size", String.valueOf(PAGE_SIZE));
+        return sort == null ? request : request.param("sort", sort.name());
+    }
+
+    private List<Long> walk(Supplier<MockHttpServletRequestBuilder> request) throws Exception {
+        List<Long> walked = new ArrayList<>();
+        MockHttpServletResponse page = mockMvc.perform(request.get())
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        walked.addAll(ids(page));
+
+        while (page.getHeader(EventCursor.HEADER) != null) {
+            assertEquals(PAGE_SIZE, ids(page).size());
+            page = mockMvc.perform(request.get().param("cursor", page.getHeader(EventCursor.HEADER)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            walked.addAll(ids(page));
+        }
+        return walked;
+    }
+
+    private List<Long> ids(MockHttpServletResponse response) throws Exception {
+        List<Number> ids = JsonPath.read(response.getContentAsString(), "$[*].id");
+        return ids.stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> order(int... indexes) {
+        List<Long> ids = new ArrayList<>();
+        for (int index : indexes) {
+            ids.add(eventIds.get(index));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.main_service.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.main_service.IntegrationTest;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EventSearchTest extends IntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void textFilterMatchesSubstringsOnH2() throws Exception {
+        String marker = unique();
+        Long userId = createUser();
+        Long categoryId = createCategory();
+
+        Long matching = createPublishedEvent(userId, categoryId, "Annual conference " + marker + "suffix", 0, true);
+        Long other = createPublishedEvent(userId, categoryId, "Annual meetup without the marker text", 0, true);
+
+        mockMvc.perform(get("/events").param("text", marker.substring(4, 20).toUpperCase()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", hasItem(matching.intValue())))
+                .andExpect(jsonPath("$[*].id", not(hasItem(other.intValue()))));
+    }
+
+    @Test
+    void sortByViewsOrdersAndShowsTheSynchronizedViews() throws Exception {
+        Long userId = createUser();
+        Long categoryId = createCategory();
+
+        Long few = createPublishedEvent(userId, categoryId, "Event with a few views to sort by", 0, true);
+        Long most = createPublishedEvent(userId, categoryId, "Event with the most views to sort by", 0, true);
+        Long some = createPublishedEvent(userId, categoryId, "Event with some views to sort by", 0, true);
+        setViews(few, 5);
+        setViews(most, 20);
+        setViews(some, 10);
+
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("sort", "VIEWS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(most.intValue(), some.intValue(), few.intValue())))
+                .andExpect(jsonPath("$[*].views", contains(20, 10, 5)));
+    }
+
+    @Test
+    void onlyAvailableSkipsEventsWhoseConfirmedRequestsReachTheLimit() throws Exception {
+        Long userId = createUser();
+        Long categoryId = createCategory();
+
+        Long full = createPublishedEvent(userId, categoryId, "Event that has no places left at all", 2, false);
+        Long open = createPublishedEvent(userId, categoryId, "Event that still has one place left", 2, false);
+        Long unlimited = createPublishedEvent(userId, categoryId, "Event without a participant limit", 0, false);
+        setConfirmedRequests(full, 2);
+        setConfirmedRequests(open, 1);
+        setConfirmedRequests(unlimited, 5);
+
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("onlyAvailable", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", containsInAnyOrder(open.intValue(), unlimited.intValue())))
+                .andExpect(jsonPath("$[*].confirmedRequests", containsInAnyOrder(1, 5)));
+
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("onlyAvailable", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", containsInAnyOrder(full.intValue(), open.intValue(),
+                        unlimited.intValue())));
+    }
+
+    private void setConfirmedRequests(Long eventId, long confirmedRequests) {
+        jdbcTemplate.update("UPDATE events SET confirmed_requests = ? WHERE id = ?", confirmedRequests, eventId);
+    }
+
+    private void setViews(Long eventId, long views) {
+        jdbcTemplate.update("UPDATE events SET views = ? WHERE id = ?", views, eventId);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.main_service.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.main_service.IntegrationTest;
+import ru.practicum.main_service.compilation.dto.NewCompilationDto;
+import ru.practicum.main_service.compilation.service.CompilationService;
+import ru.practicum.main_service.event.service.RequestService;
+import ru.practicum.stats_common.model.ViewStats;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The public listings build their EventShortDto from a projection, the initiator's listing still maps
+ * the entity: both must serialize to the same fields.
+ */
+class EventShortDtoProjectionTest extends IntegrationTest {
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private CompilationService compilationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void projectedListingsReturnTheFullShortDto() throws Exception {
+        Long userId = createUser();
+        Long catId = createCategory();
+        Long eventId = createPublishedEvent(userId, catId, "Event listed through the projection", 0, false);
+        requestService.createEventRequest(createUser(), eventId);
+        jdbcTemplate.update("UPDATE events SET views = 5 WHERE id = ?", eventId);
+        when(statsClient.getViewStats(any(), any(), anyList(), any(), any()))
+                .thenReturn(List.of(new ViewStats("ewm-main-service", "/events/" + eventId, 5L)));
+        Long compId = compilationService.create(new NewCompilationDto("Compilation " + unique(), false,
+                List.of(eventId))).getId();
+
+        JsonNode expected = read(get("/users/{userId}/events", userId)).get(0);
+        assertEquals(eventId, expected.get("id").asLong());
+        assertEquals("Event listed through the projection", expected.get("annotation").asText());
+        assertEquals("Event", expected.get("title").asText());
+        assertEquals(catId, expected.get("category").get("id").asLong());
+        assertEquals(categoryService.getById(catId).getName(), expected.get("category").get("name").asText());
+        assertEquals(userId, expected.get("initiator").get("id").asLong());
+        assertEquals("User", expected.get("initiator").get("name").asText());
+        assertEquals(1, expected.get("confirmedRequests").asLong());
+        assertEquals(5, expected.get("views").asLong());
+        assertEquals(false, expected.get("paid").asBoolean());
+        assertEquals(19, expected.get("eventDate").asText().length());
+
+        assertEquals(expected, read(get("/events").param("categories", catId.toString())).get(0));
+        assertEquals(expected, read(get("/events").param("categories", catId.toString())
+                .param("sort", "VIEWS")).get(0));
+        assertEquals(expected, read(get("/compilations/{compId}", compId)).get("events").get(0));
+    }
+
+    private JsonNode read(RequestBuilder request) throws Exception {
+        return objectMapper.readTree(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
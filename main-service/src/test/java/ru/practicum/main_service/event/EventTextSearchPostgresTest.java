@@ -0,0 +1,89 @@
+package ru.practicum.main_service.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.main_service.IntegrationTest;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the text filter on PostgreSQL with full-text search on, as in production. Needs a database
+ * given by EWM_POSTGRES_URL (and EWM_POSTGRES_USER, EWM_POSTGRES_PASSWORD), otherwise it is skipped.
+ */
+@ActiveProfiles("postgres")
+@EnabledIfEnvironmentVariable(named = "EWM_POSTGRES_URL", matches = ".+")
+class EventTextSearchPostgresTest extends IntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+    private Long concert;
+    private Long doubleConcert;
+    private Long concrete;
+
+    @BeforeEach
+    void createEvents() {
+        Long userId = createUser();
+        categoryId = createCategory();
+        concert = createPublishedEvent(userId, categoryId, "Summer concert in the city park", 0, true);
+        doubleConcert = createPublishedEvent(userId, categoryId, "Concert after concert all night long", 0, true);
+        concrete = createPublishedEvent(userId, categoryId, "Lecture on reinforced concrete bridges", 0, true);
+    }
+
+    @Test
+    void textFilterMatchesCaseInsensitiveSubstringsForEverySortButRelevance() throws Exception {
+        for (String sort : List.of("EVENT_DATE", "VIEWS")) {
+            mockMvc.perform(get("/events")
+                            .param("categories", categoryId.toString())
+                            .param("text", "CONC")
+                            .param("sort", sort))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id", containsInAnyOrder(concert.intValue(), doubleConcert.intValue(),
+                            concrete.intValue())));
+        }
+
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("text", "conc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(concert.intValue(), doubleConcert.intValue(),
+                        concrete.intValue())));
+    }
+
+    @Test
+    void relevanceMatchesWholeWordsAndRanksByFrequency() throws Exception {
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("text", "concert")
+                        .param("sort", "RELEVANCE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(doubleConcert.intValue(), concert.intValue())));
+
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("text", "conc")
+                        .param("sort", "RELEVANCE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void substringSearchHasTrigramIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'events'", String.class);
+
+        assertTrue(indexes.containsAll(List.of("events_annotation_trgm_idx", "events_description_trgm_idx",
+                "events_text_search_idx")), indexes.toString());
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.main_service.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.main_service.IntegrationTest;
+import ru.practicum.main_service.event.service.EventViewsSynchronizer;
+import ru.practicum.stats_common.model.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EventViewsSynchronizerTest extends IntegrationTest {
+    @Autowired
+    private EventViewsSynchronizer eventViewsSynchronizer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void synchronizedViewsOfUpcomingEventsDriveTheViewsSort() throws Exception {
+        Long userId = createUser();
+        Long categoryId = createCategory();
+        Long popular = createPublishedEvent(userId, categoryId, "Upcoming event that many people view", 0, true);
+        Long quiet = createPublishedEvent(userId, categoryId, "Upcoming event that few people view", 0, true);
+        Long past = createPublishedEvent(userId, categoryId, "Event that has already taken place", 0, true);
+        jdbcTemplate.update("UPDATE events SET event_date = ? WHERE id = ?", LocalDateTime.now().minusDays(1), past);
+
+        Map<String, Long> hits = Map.of("/events/" + popular, 30L, "/events/" + quiet, 3L, "/events/" + past, 50L);
+        when(statsClient.getViewStats(any(), any(), anyList(), any(), any())).thenAnswer(invocation ->
+                invocation.<List<String>>getArgument(2).stream()
+                        .filter(hits::containsKey)
+                        .map(uri -> new ViewStats("ewm-main-service", uri, hits.get(uri)))
+                        .collect(Collectors.toList()));
+
+        ReflectionTestUtils.setField(eventViewsSynchronizer, "enabled", true);
+        try {
+            eventViewsSynchronizer.synchronize();
+        } finally {
+            ReflectionTestUtils.setField(eventViewsSynchronizer, "enabled", false);
+        }
+
+        assertEquals(30L, views(popular));
+        assertEquals(3L, views(quiet));
+        assertEquals(0L, views(past));
+
+        mockMvc.perform(get("/events")
+                        .param("categories", categoryId.toString())
+                        .param("sort", "VIEWS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(popular.intValue(), quiet.intValue())))
+                .andExpect(jsonPath("$[*].views", contains(30, 3)));
+    }
+
+    private Long views(Long eventId) {
+        return jdbcTemplate.queryForObject("SELECT views FROM events WHERE id = ?", Long.class, eventId);
+    }
+}
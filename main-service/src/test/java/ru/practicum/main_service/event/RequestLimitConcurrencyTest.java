@@ -0,0 +1,136 @@
+package ru.practicum.main_service.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.main_service.IntegrationTest;
+import ru.practicum.main_service.event.dto.EventRequestStatusUpdateRequest;
+import ru.practicum.main_service.event.enums.RequestStatus;
+import ru.practicum.main_service.event.enums.RequestStatusAction;
+import ru.practicum.main_service.event.repository.EventRepository;
+import ru.practicum.main_service.event.repository.RequestRepository;
+import ru.practicum.main_service.event.service.RequestService;
+import ru.practicum.main_service.exception.ForbiddenException;
+import ru.practicum.main_service.exception.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestLimitConcurrencyTest extends IntegrationTest {
+    private static final int THREADS = 64;
+    private static final int REQUESTS = 2000;
+    private static final int LIMIT = 7;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Test
+    void parallelRequestsNeverOversubscribeAnEvent() throws Exception {
+        Long eventId = createPublishedEvent(createUser(), createCategory(), "Event without request moderation",
+                LIMIT, false);
+        List<Long> requesters = createUsers(REQUESTS);
+
+        AtomicInteger rejected = new AtomicInteger();
+        runInParallel(requesters, userId -> {
+            try {
+                requestService.createEventRequest(userId, eventId);
+            } catch (ForbiddenException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(LIMIT, eventRepository.getConfirmedRequests(eventId));
+        assertEquals(LIMIT, confirmedRows(eventId));
+        assertEquals(REQUESTS - LIMIT, rejected.get());
+    }
+
+    @Test
+    void parallelConfirmationsNeverOversubscribeAnEvent() throws Exception {
+        Long ownerId = createUser();
+        Long eventId = createPublishedEvent(ownerId, createCategory(), "Event with request moderation", LIMIT, true);
+
+        List<Long> requestIds = new ArrayList<>();
+        for (Long userId : createUsers(REQUESTS / 10)) {
+            requestIds.add(requestService.createEventRequest(userId, eventId).getId());
+        }
+
+        List<List<Long>> batches = new ArrayList<>();
+        for (int i = 0; i < requestIds.size(); i += 2) {
+            batches.add(requestIds.subList(i, Math.min(i + 2, requestIds.size())));
+        }
+
+        runInParallel(batches, batch -> {
+            try {
+                requestService.patchEventRequestsByEventOwner(ownerId, eventId,
+                        new EventRequestStatusUpdateRequest(batch, RequestStatusAction.CONFIRMED));
+            } catch (ForbiddenException ignore) {
+                // The limit is reached or the batch was rejected after it
+            }
+        });
+
+        Long confirmed = eventRepository.getConfirmedRequests(eventId);
+        assertEquals(confirmed, confirmedRows(eventId));
+        assertEquals(LIMIT - LIMIT % 2, confirmed);
+    }
+
+    @Test
+    void confirmationRejectsRequestsOfAnotherEvent() {
+        Long ownerId = createUser();
+        Long categoryId = createCategory();
+        Long eventId = createPublishedEvent(ownerId, categoryId, "Event with request moderation", LIMIT, true);
+        Long otherEventId = createPublishedEvent(createUser(), categoryId, "Another event with moderation", LIMIT,
+                true);
+        Long foreignRequestId = requestService.createEventRequest(createUser(), otherEventId).getId();
+
+        assertThrows(NotFoundException.class, () -> requestService.patchEventRequestsByEventOwner(ownerId, eventId,
+                new EventRequestStatusUpdateRequest(List.of(foreignRequestId), RequestStatusAction.CONFIRMED)));
+        assertEquals(0L, eventRepository.getConfirmedRequests(eventId));
+    }
+
+    private List<Long> createUsers(int count) {
+        List<Long> userIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            userIds.add(createUser());
+        }
+        return userIds;
+    }
+
+    private long confirmedRows(Long eventId) {
+        return requestRepository.findAllByEventIdAndStatus(eventId, RequestStatus.CONFIRMED).size();
+    }
+
+    private <T> void runInParallel(List<T> items, ThrowingConsumer<T> action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (T item : items) {
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    action.accept(item);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface ThrowingConsumer<T> {
+        void accept(T item) throws Exception;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.main_service.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.main_service.event.service.StatsServiceImpl;
+import ru.practicum.stats_client.StatsClient;
+import ru.practicum.stats_client.StatsHitBuffer;
+import ru.practicum.stats_common.model.EndpointHit;
+import ru.practicum.stats_common.model.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsServiceViewsCacheTest {
+    private static final LocalDateTime PUBLISHED = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final Map<String, Long> HITS = Map.of("/events/1", 7L, "/events/3", 2L);
+
+    private StatsClient statsClient;
+    private StatsHitBuffer statsHitBuffer;
+    private StatsServiceImpl statsService;
+
+    @BeforeEach
+    void createService() {
+        statsClient = mock(StatsClient.class);
+        statsHitBuffer = mock(StatsHitBuffer.class);
+        when(statsClient.getViewStats(any(), any(), anyList(), any(), any())).thenAnswer(invocation ->
+                invocation.<List<String>>getArgument(2).stream()
+                        .filter(HITS::containsKey)
+                        .map(uri -> new ViewStats("ewm-main-service", uri, HITS.get(uri)))
+                        .collect(Collectors.toList()));
+
+        statsService = new StatsServiceImpl(statsClient, statsHitBuffer, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(statsService, "approximateViews", false);
+        ReflectionTestUtils.setField(statsService, "viewsCacheEnabled", true);
+        ReflectionTestUtils.setField(statsService, "viewsCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(statsService, "viewsCacheTtlMs", 60_000L);
+        statsService.initViewsCache();
+    }
+
+    @Test
+    void cachedViewsAreServedWithoutAskingTheStatsServer() {
+        assertEquals(Map.of(1L, 7L), statsService.getViews(published(1L, 2L)));
+        assertEquals(Map.of(1L, 7L), statsService.getViews(published(1L, 2L)));
+
+        verify(statsClient, times(1)).getViewStats(any(), any(), anyList(), any(), any());
+    }
+
+    @Test
+    void onlyTheMissesAreRequested() {
+        statsService.getViews(published(1L, 2L));
+
+        assertEquals(Map.of(1L, 7L, 3L, 2L), statsService.getViews(published(1L, 2L, 3L)));
+
+        assertEquals(List.of(List.of("/events/1", "/events/2"), List.of("/events/3")), requestedUris(2));
+    }
+
+    @Test
+    void sentHitEvictsTheViewsOfItsEvent() {
+        statsService.getViews(published(1L, 2L));
+
+        sentListener().accept(List.of(hit("/events/1"), hit("/events"), hit("/events/2/requests")));
+        statsService.getViews(published(1L, 2L));
+
+        assertEquals(List.of(List.of("/events/1", "/events/2"), List.of("/events/1")), requestedUris(2));
+    }
+
+    @Test
+    void disabledCacheAsksTheStatsServerEveryTime() {
+        ReflectionTestUtils.setField(statsService, "viewsCacheEnabled", false);
+
+        statsService.getViews(published(1L));
+        statsService.getViews(published(1L));
+
+        verify(statsClient, times(2)).getViewStats(any(), any(), eq(List.of("/events/1")), any(), any());
+    }
+
+    private Map<Long, LocalDateTime> published(Long... eventIds) {
+        return List.of(eventIds).stream()
+                .collect(Collectors.toMap(eventId -> eventId, eventId -> PUBLISHED));
+    }
+
+    private List<List<String>> requestedUris(int calls) {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> uris = ArgumentCaptor.forClass(List.class);
+        verify(statsClient, times(calls)).getViewStats(any(), any(), uris.capture(), any(), any());
+        return uris.getAllValues().stream()
+                .map(requested -> requested.stream().sorted().collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    private Consumer<List<EndpointHit>> sentListener() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<List<EndpointHit>>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(statsHitBuffer).addSentListener(listener.capture());
+        return listener.getValue();
+    }
+
+    private EndpointHit hit(String uri) {
+        return new EndpointHit("ewm-main-service", uri, "10.0.0.1", "2024-05-01 13:00:00");
+    }
+}
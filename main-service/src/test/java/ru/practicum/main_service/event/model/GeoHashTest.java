@@ -0,0 +1,143 @@
+package ru.practicum.main_service.event.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoHashTest {
+
+    @Test
+    void encodesToTheReferenceHash() {
+        assertEquals("u4pruydqq", GeoHash.encode(57.64911, 10.40744));
+        assertEquals("u4pru", GeoHash.encode(57.64911, 10.40744, 5));
+    }
+
+    @Test
+    void smallCircleInsideOneCellNeedsOnePrefix() {
+        String cell = GeoHash.encode(55.7558, 37.6173, 5);
+        double[] center = cellCenter(cell);
+
+        List<String> prefixes = GeoHash.coveringPrefixes(center[0], center[1], 0.5);
+
+        assertEquals(1, prefixes.size());
+        assertTrue(prefixes.get(0).startsWith(cell));
+        assertCovered(center[0], center[1], 0.5, prefixes);
+    }
+
+    @Test
+    void circleAcrossCellBoundariesNeedsAPrefixPerCell() {
+        List<String> prefixes = GeoHash.coveringPrefixes(0.0, 0.0, 1.0);
+
+        assertEquals(4, prefixes.size());
+        assertEquals(List.of("7", "e", "k", "s"), prefixes.stream()
+                .map(prefix -> prefix.substring(0, 1))
+                .sorted()
+                .collect(Collectors.toList()));
+        assertCovered(0.0, 0.0, 1.0, prefixes);
+
+        String cell = GeoHash.encode(55.7558, 37.6173, 6);
+        double[] center = cellCenter(cell);
+        double[] corner = cellCorner(cell);
+        List<String> boundary = GeoHash.coveringPrefixes(center[0], corner[1], 0.2);
+        assertTrue(boundary.size() > 1, "Circle on a cell edge got " + boundary);
+        assertCovered(center[0], corner[1], 0.2, boundary);
+    }
+
+    @Test
+    void randomCirclesAreCoveredByTheirPrefixes() {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            double lat = random.nextDouble() * 160 - 80;
+            double lon = random.nextDouble() * 350 - 175;
+            double radius = Math.pow(10, random.nextDouble() * 3 - 1);
+
+            List<String> prefixes = GeoHash.coveringPrefixes(lat, lon, radius);
+            assertTrue(prefixes.size() <= 4);
+            if (!prefixes.isEmpty()) {
+                assertCovered(lat, lon, radius, prefixes);
+            }
+        }
+    }
+
+    @Test
+    void circlesNearThePolesAreWidenedOrLeftToTheDistanceCheck() {
+        assertTrue(GeoHash.coveringPrefixes(89.99, 0.0, 5.0).isEmpty());
+        assertTrue(GeoHash.coveringPrefixes(-89.99, 120.0, 5.0).isEmpty());
+
+        List<String> prefixes = GeoHash.coveringPrefixes(85.0, 10.0, 5.0);
+        assertFalse(prefixes.isEmpty());
+        assertCovered(85.0, 10.0, 5.0, prefixes);
+    }
+
+    @Test
+    void circlesAcrossTheAntimeridianAreLeftToTheDistanceCheck() {
+        assertTrue(GeoHash.coveringPrefixes(10.0, 179.99, 5.0).isEmpty());
+        assertTrue(GeoHash.coveringPrefixes(-10.0, -179.99, 5.0).isEmpty());
+        assertTrue(GeoHash.coveringPrefixes(0.0, 0.0, 20000.0).isEmpty());
+
+        List<String> prefixes = GeoHash.coveringPrefixes(10.0, 179.9, 5.0);
+        assertFalse(prefixes.isEmpty());
+        assertCovered(10.0, 179.9, 5.0, prefixes);
+    }
+
+    /**
+     * Checks points on and inside the circle in every direction: each must fall into one of the prefixes.
+     */
+    private void assertCovered(double lat, double lon, double radiusKm, List<String> prefixes) {
+        for (int bearing = 0; bearing < 360; bearing += 5) {
+            for (double fraction : new double[]{0.25, 0.5, 0.75, 0.999}) {
+                double[] point = destination(lat, lon, radiusKm * fraction, Math.toRadians(bearing));
+                String hash = GeoHash.encode(point[0], point[1]);
+                assertTrue(prefixes.stream().anyMatch(hash::startsWith),
+                        String.format("Point %s,%s of circle %s,%s r=%s is outside %s",
+                                point[0], point[1], lat, lon, radiusKm, prefixes));
+            }
+        }
+    }
+
+    private double[] destination(double lat, double lon, double distanceKm, double bearing) {
+        double angle = distanceKm / GeoHash.EARTH_RADIUS_KM;
+        double lat1 = Math.toRadians(lat);
+        double lat2 = Math.asin(Math.sin(lat1) * Math.cos(angle) + Math.cos(lat1) * Math.sin(angle) * Math.cos(bearing));
+        double lon2 = Math.toRadians(lon) + Math.atan2(Math.sin(bearing) * Math.sin(angle) * Math.cos(lat1),
+                Math.cos(angle) - Math.sin(lat1) * Math.sin(lat2));
+        return new double[]{Math.toDegrees(lat2), Math.toDegrees(lon2)};
+    }
+
+    private double[] cellCenter(String cell) {
+        double[] bounds = bounds(cell);
+        return new double[]{(bounds[0] + bounds[1]) / 2, (bounds[2] + bounds[3]) / 2};
+    }
+
+    private double[] cellCorner(String cell) {
+        double[] bounds = bounds(cell);
+        return new double[]{bounds[0], bounds[2]};
+    }
+
+    private double[] bounds(String cell) {
+        String base32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+        double[] lat = {-90.0, 90.0};
+        double[] lon = {-180.0, 180.0};
+        boolean isLon = true;
+        for (char c : cell.toCharArray()) {
+            int index = base32.indexOf(c);
+            for (int bit = 4; bit >= 0; bit--) {
+                double[] range = isLon ? lon : lat;
+                double mid = (range[0] + range[1]) / 2;
+                if ((index >> bit & 1) == 1) {
+                    range[0] = mid;
+                } else {
+                    range[1] = mid;
+                }
+                isLon = !isLon;
+            }
+        }
+        return new double[]{lat[0], lat[1], lon[0], lon[1]};
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.stats_client;
 
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -27,6 +28,11 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.GET, path, parameters, null);
     }
 
+    protected <R> R get(String path, Map<String, Object> parameters, ParameterizedTypeReference<R> responseType) {
+        HttpEntity<Void> requestEntity = new HttpEntity<>(defaultHeaders());
+        return restTemplate.exchange(path, HttpMethod.GET, requestEntity, responseType, parameters).getBody();
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path,
                                                           @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders());
@@ -0,0 +1,5 @@
+package ru.practicum.stats_client;
+
+public enum OverflowPolicy {
+    DROP_OLDEST, BLOCK, SPILL
+}
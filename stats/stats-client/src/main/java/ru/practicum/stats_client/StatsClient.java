@@ -3,11 +3,13 @@ package ru.practicum.stats_client;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.stats_common.model.EndpointHit;
+import ru.practicum.stats_common.model.ViewStats;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -16,6 +18,9 @@ import java.util.Map;
 
 @Service
 public class StatsClient extends BaseClient {
+    private static final ParameterizedTypeReference<List<ViewStats>> VIEW_STATS_LIST =
+            new ParameterizedTypeReference<>() {
+            };
 
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
@@ -29,13 +34,20 @@ public class StatsClient extends BaseClient {
     }
 
     public ResponseEntity<Object> addHit(String appName, String uri, String ip, LocalDateTime timestamp) {
-        EndpointHit endpointHit = EndpointHit.builder()
+        return post("/hit", toEndpointHit(appName, uri, ip, timestamp));
+    }
+
+    public ResponseEntity<Object> addHits(List<EndpointHit> endpointHits) {
+        return post("/hits", endpointHits);
+    }
+
+    public EndpointHit toEndpointHit(String appName, String uri, String ip, LocalDateTime timestamp) {
+        return EndpointHit.builder()
                 .app(appName)
                 .uri(uri)
                 .ip(ip)
                 .timestamp(timestamp.format(formatter))
                 .build();
-        return post("/hit", endpointHit);
     }
 
     public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
@@ -51,15 +63,37 @@ public class StatsClient extends BaseClient {
     }
 
     public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+        return getStats(start, end, uris, unique, null);
+    }
+
+    public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                           Boolean approx) {
+        return get(statsPath(uris, unique, approx), statsParameters(start, end));
+    }
+
+    public List<ViewStats> getViewStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+        return getViewStats(start, end, uris, unique, null);
+    }
+
+    public List<ViewStats> getViewStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                        Boolean approx) {
+        List<ViewStats> stats = get(statsPath(uris, unique, approx), statsParameters(start, end), VIEW_STATS_LIST);
+        return stats == null ? List.of() : stats;
+    }
+
+    private Map<String, Object> statsParameters(LocalDateTime start, LocalDateTime end) {
         if (start == null || end == null || start.isAfter(end)) {
             throw new IllegalArgumentException("Wrong data interval!");
         }
 
-        StringBuilder uriBuilder = new StringBuilder("/stats" + "?start={start}&end={end}");
-        Map<String, Object> parameters = Map.of(
+        return Map.of(
                 "start", start.format(formatter),
                 "end", end.format(formatter)
         );
+    }
+
+    private String statsPath(List<String> uris, Boolean unique, Boolean approx) {
+        StringBuilder uriBuilder = new StringBuilder("/stats" + "?start={start}&end={end}");
 
         if (uris != null && !uris.isEmpty()) {
             for (String uri : uris) {
@@ -69,7 +103,10 @@ public class StatsClient extends BaseClient {
         if (unique != null) {
             uriBuilder.append("&unique=").append(unique);
         }
+        if (approx != null) {
+            uriBuilder.append("&approx=").append(approx);
+        }
 
-        return get(uriBuilder.toString(), parameters);
+        return uriBuilder.toString();
     }
 }
@@ -0,0 +1,332 @@
+package ru.practicum.stats_client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats_common.model.EndpointHit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Ships hits to the stats server in batches from a background thread, so that request threads only pay for
+ * an in-memory enqueue. When {@code stats-server.hits.async} is off every hit is sent synchronously.
+ * Sent listeners are told about every batch the stats server accepted, from the thread that sent it.
+ */
+@Service
+@Slf4j
+public class StatsHitBuffer {
+    private final StatsClient statsClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final boolean async;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final OverflowPolicy overflowPolicy;
+    private final Path spillFile;
+    private final BlockingQueue<EndpointHit> queue;
+    private final List<Consumer<List<EndpointHit>>> sentListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong sentHits = new AtomicLong();
+    private final AtomicLong droppedHits = new AtomicLong();
+    private final AtomicLong spilledHits = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public StatsHitBuffer(StatsClient statsClient,
+                          MeterRegistry meterRegistry,
+                          @Value("${stats-server.hits.async:false}") boolean async,
+                          @Value("${stats-server.hits.buffer-capacity:10000}") int capacity,
+                          @Value("${stats-server.hits.batch-size:200}") int batchSize,
+                          @Value("${stats-server.hits.flush-interval-ms:1000}") long flushIntervalMs,
+                          @Value("${stats-server.hits.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+                          @Value("${stats-server.hits.spill-file:stats-hits.spill}") String spillFile) {
+        this.statsClient = statsClient;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = Paths.get(spillFile);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        registerCounter(meterRegistry, "stats.hits.sent", sentHits);
+        registerCounter(meterRegistry, "stats.hits.dropped", droppedHits);
+        registerCounter(meterRegistry, "stats.hits.spilled", spilledHits);
+        registerCounter(meterRegistry, "stats.hits.failed-batches", failedBatches);
+        Gauge.builder("stats.hits.queue-size", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!async) {
+            return;
+        }
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "stats-hit-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+
+        running = false;
+        flusher.interrupt();
+        flusher.join(flushIntervalMs * 2);
+
+        List<EndpointHit> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int i = 0; i < rest.size(); i += batchSize) {
+            send(rest.subList(i, Math.min(i + batchSize, rest.size())));
+        }
+    }
+
+    public void addSentListener(Consumer<List<EndpointHit>> listener) {
+        sentListeners.add(listener);
+    }
+
+    public void add(String appName, String uri, String ip, LocalDateTime timestamp) {
+        EndpointHit hit = statsClient.toEndpointHit(appName, uri, ip, timestamp);
+
+        if (!async) {
+            ResponseEntity<Object> response = statsClient.addHit(appName, uri, ip, timestamp);
+            if (response.getStatusCode().is2xxSuccessful()) {
+                notifySent(List.of(hit));
+            }
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(hit);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedHits.incrementAndGet();
+                }
+                break;
+            case SPILL:
+                if (!queue.offer(hit)) {
+                    spill(List.of(hit));
+                }
+                break;
+            default:
+                while (!queue.offer(hit)) {
+                    if (queue.poll() != null) {
+                        droppedHits.incrementAndGet();
+                    }
+                }
+        }
+    }
+
+    public long getSentHits() {
+        return sentHits.get();
+    }
+
+    public long getDroppedHits() {
+        return droppedHits.get();
+    }
+
+    public long getSpilledHits() {
+        return spilledHits.get();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void runFlusher() {
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    EndpointHit hit = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (hit == null) {
+                        break;
+                    }
+                    batch.add(hit);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch, batchSize - batch.size());
+                running = false;
+            }
+
+            if (batch.isEmpty()) {
+                replaySpill();
+            } else {
+                send(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<EndpointHit> batch) {
+        if (post(batch)) {
+            return;
+        }
+
+        failedBatches.incrementAndGet();
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            spill(batch);
+        } else {
+            droppedHits.addAndGet(batch.size());
+        }
+    }
+
+    private boolean post(List<EndpointHit> batch) {
+        try {
+            ResponseEntity<Object> response = statsClient.addHits(new ArrayList<>(batch));
+            if (response.getStatusCode().is2xxSuccessful()) {
+                sentHits.addAndGet(batch.size());
+                notifySent(batch);
+                return true;
+            }
+            log.warn("Stats server rejected batch of {} hits: {}", batch.size(), response.getStatusCode());
+        } catch (RuntimeException e) {
+            log.warn("Failed to send batch of {} hits: {}", batch.size(), e.getMessage());
+        }
+        return false;
+    }
+
+    private void notifySent(List<EndpointHit> hits) {
+        for (Consumer<List<EndpointHit>> listener : sentListeners) {
+            try {
+                listener.accept(hits);
+            } catch (RuntimeException e) {
+                log.warn("Sent listener failed on {} hits: {}", hits.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void spill(List<EndpointHit> hits) {
+        if (writeSpill(hits)) {
+            spilledHits.addAndGet(hits.size());
+        }
+    }
+
+    private synchronized boolean writeSpill(List<EndpointHit> hits) {
+        try {
+            List<String> lines = new ArrayList<>(hits.size());
+            for (EndpointHit hit : hits) {
+                lines.add(mapper.writeValueAsString(hit));
+            }
+            Files.write(spillFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to spill {} hits to {}: {}", hits.size(), spillFile, e.getMessage());
+            droppedHits.addAndGet(hits.size());
+            return false;
+        }
+    }
+
+    private void replaySpill() {
+        if (overflowPolicy != OverflowPolicy.SPILL) {
+            return;
+        }
+
+        // A replay file left behind by a crash holds hits that were never sent, so it goes before the spill file
+        Path replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+        if (Files.exists(replayFile) && !replay(replayFile)) {
+            return;
+        }
+        if (!Files.exists(spillFile)) {
+            return;
+        }
+
+        synchronized (this) {
+            try {
+                Files.move(spillFile, replayFile);
+            } catch (IOException e) {
+                log.warn("Failed to replay spilled hits from {}: {}", spillFile, e.getMessage());
+                return;
+            }
+        }
+        replay(replayFile);
+    }
+
+    private boolean replay(Path replayFile) {
+        List<EndpointHit> hits = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(replayFile, StandardCharsets.UTF_8)) {
+                hits.add(readHit(line));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to replay spilled hits from {}: {}", replayFile, e.getMessage());
+            return false;
+        }
+
+        // Replayed hits were already counted as spilled, so a failed replay only puts the rest back.
+        // The replay file is deleted last: a crash before that sends its hits again rather than losing them
+        boolean sent = true;
+        for (int i = 0; i < hits.size(); i += batchSize) {
+            if (!post(hits.subList(i, Math.min(i + batchSize, hits.size())))) {
+                writeSpill(hits.subList(i, hits.size()));
+                sent = false;
+                break;
+            }
+        }
+
+        try {
+            Files.delete(replayFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete replayed hits file {}: {}", replayFile, e.getMessage());
+            return false;
+        }
+        return sent;
+    }
+
+    private void registerCounter(MeterRegistry meterRegistry, String name, AtomicLong value) {
+        FunctionCounter.builder(name, value, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    private EndpointHit readHit(String line) {
+        try {
+            return mapper.readValue(line, EndpointHit.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.stats_client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.web.client.MockServerRestTemplateCustomizer;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import ru.practicum.stats_common.model.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.queryParam;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class StatsClientTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    private MockRestServiceServer server;
+    private StatsClient statsClient;
+
+    @BeforeEach
+    void createClient() {
+        MockServerRestTemplateCustomizer customizer = new MockServerRestTemplateCustomizer();
+        statsClient = new StatsClient("http://stats-server:9090", new RestTemplateBuilder(customizer));
+        server = customizer.getServer();
+    }
+
+    @Test
+    void viewStatsAreDecodedIntoTypedObjects() {
+        server.expect(requestTo(startsWith("http://stats-server:9090/stats?")))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("Accept", MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(queryParam("uris", "/events/1", "/events/2"))
+                .andExpect(queryParam("unique", "true"))
+                .andExpect(queryParam("approx", "false"))
+                .andRespond(withSuccess("[{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"hits\":7}," +
+                        "{\"app\":\"ewm-main-service\",\"uri\":\"/events/2\",\"hits\":3000000000}]",
+                        MediaType.APPLICATION_JSON));
+
+        List<ViewStats> stats = statsClient.getViewStats(START, END, List.of("/events/1", "/events/2"), true, false);
+
+        server.verify();
+        assertEquals(List.of(new ViewStats("ewm-main-service", "/events/1", 7L),
+                new ViewStats("ewm-main-service", "/events/2", 3_000_000_000L)), stats);
+    }
+
+    @Test
+    void emptyBodyIsAnEmptyList() {
+        server.expect(requestTo(startsWith("http://stats-server:9090/stats?")))
+                .andRespond(withSuccess());
+        server.expect(requestTo(startsWith("http://stats-server:9090/stats?")))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        assertEquals(List.of(), statsClient.getViewStats(START, END, null, false));
+        assertEquals(List.of(), statsClient.getViewStats(START, END, null, false));
+        server.verify();
+    }
+
+    @Test
+    void errorStatusesAreThrownByTheTypedGet() {
+        server.expect(requestTo(startsWith("http://stats-server:9090/stats?")))
+                .andRespond(withStatus(HttpStatus.BAD_REQUEST)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"error\":\"Wrong date interval!\"}"));
+        server.expect(requestTo(startsWith("http://stats-server:9090/stats?")))
+                .andRespond(withServerError());
+
+        assertThrows(HttpClientErrorException.BadRequest.class,
+                () -> statsClient.getViewStats(START, END, null, false));
+        assertThrows(HttpServerErrorException.InternalServerError.class,
+                () -> statsClient.getViewStats(START, END, null, false));
+        server.verify();
+    }
+
+    @Test
+    void untypedGetReturnsTheErrorStatus() {
+        server.expect(requestTo(startsWith("http://stats-server:9090/stats?")))
+                .andRespond(withServerError());
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, statsClient.getStats(START, END).getStatusCode());
+        server.verify();
+    }
+
+    @Test
+    void wrongIntervalIsRejectedBeforeAnyRequest() {
+        assertThrows(IllegalArgumentException.class, () -> statsClient.getViewStats(END, START, null, false));
+        server.verify();
+    }
+}
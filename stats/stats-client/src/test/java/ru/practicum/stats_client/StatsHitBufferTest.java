@@ -0,0 +1,217 @@
+package ru.practicum.stats_client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.stats_common.model.EndpointHit;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatsHitBufferTest {
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2022, 9, 6, 11, 0, 23);
+
+    @TempDir
+    Path dir;
+
+    private StatsClient statsClient;
+    private List<List<String>> batches;
+    private volatile int failures;
+    private StatsHitBuffer buffer;
+
+    @BeforeEach
+    void createClient() {
+        statsClient = mock(StatsClient.class);
+        batches = Collections.synchronizedList(new ArrayList<>());
+        when(statsClient.toEndpointHit(anyString(), anyString(), anyString(), any())).thenAnswer(invocation ->
+                hit(invocation.getArgument(1)));
+        when(statsClient.addHits(any())).thenAnswer(invocation -> {
+            batches.add(uris(invocation.getArgument(0)));
+            if (failures > 0) {
+                failures--;
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        });
+    }
+
+    @AfterEach
+    void stopBuffer() throws InterruptedException {
+        if (buffer != null) {
+            buffer.stop();
+        }
+    }
+
+    @Test
+    void queuedHitsAreSentInBatchesOfTheConfiguredSize() {
+        buffer = buffer(100, 3, OverflowPolicy.DROP_OLDEST);
+        for (int i = 1; i <= 7; i++) {
+            add(i);
+        }
+
+        buffer.start();
+
+        await(() -> buffer.getSentHits() == 7);
+        assertEquals(List.of(List.of("/events/1", "/events/2", "/events/3"),
+                List.of("/events/4", "/events/5", "/events/6"),
+                List.of("/events/7")), batches);
+    }
+
+    @Test
+    void dropOldestReplacesTheOldestQueuedHit() {
+        buffer = buffer(2, 10, OverflowPolicy.DROP_OLDEST);
+        add(1);
+        add(2);
+        add(3);
+
+        assertEquals(1, buffer.getDroppedHits());
+        assertEquals(2, buffer.getQueueSize());
+
+        buffer.start();
+
+        await(() -> buffer.getSentHits() == 2);
+        assertEquals(List.of(List.of("/events/2", "/events/3")), batches);
+    }
+
+    @Test
+    void dropOldestDropsAFailedBatch() {
+        failures = Integer.MAX_VALUE;
+        buffer = buffer(10, 10, OverflowPolicy.DROP_OLDEST);
+        add(1);
+        add(2);
+
+        buffer.start();
+
+        await(() -> buffer.getDroppedHits() == 2);
+        assertEquals(1, buffer.getFailedBatches());
+        assertEquals(0, buffer.getSentHits());
+    }
+
+    @Test
+    void blockWaitsForRoomInsteadOfDropping() throws InterruptedException {
+        buffer = buffer(1, 10, OverflowPolicy.BLOCK);
+        add(1);
+        Thread producer = new Thread(() -> add(2));
+        producer.start();
+
+        producer.join(200);
+        assertTrue(producer.isAlive());
+
+        buffer.start();
+
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        await(() -> buffer.getSentHits() == 2);
+        assertEquals(0, buffer.getDroppedHits());
+    }
+
+    @Test
+    void spillWritesOverflowToTheFileAndReplaysItWhenIdle() throws Exception {
+        buffer = buffer(1, 10, OverflowPolicy.SPILL);
+        add(1);
+        add(2);
+        add(3);
+
+        assertEquals(2, buffer.getSpilledHits());
+        assertEquals(2, Files.readAllLines(spillFile()).size());
+
+        buffer.start();
+
+        await(() -> buffer.getSentHits() == 3);
+        assertEquals(List.of(List.of("/events/1"), List.of("/events/2", "/events/3")), batches);
+        assertEquals(0, buffer.getDroppedHits());
+        assertFalse(Files.exists(spillFile()));
+        assertFalse(Files.exists(replayFile()));
+    }
+
+    @Test
+    void spillKeepsAFailedBatchForTheNextReplay() throws Exception {
+        failures = 1;
+        buffer = buffer(10, 10, OverflowPolicy.SPILL);
+        add(1);
+        add(2);
+
+        buffer.start();
+
+        await(() -> buffer.getSentHits() == 2);
+        assertEquals(1, buffer.getFailedBatches());
+        assertEquals(2, buffer.getSpilledHits());
+        assertEquals(List.of(List.of("/events/1", "/events/2"), List.of("/events/1", "/events/2")), batches);
+        assertFalse(Files.exists(spillFile()));
+    }
+
+    @Test
+    void leftoverReplayFileIsReplayedBeforeTheSpillFile() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Files.write(replayFile(), List.of(mapper.writeValueAsString(hit("/events/1"))), StandardCharsets.UTF_8);
+        Files.write(spillFile(), List.of(mapper.writeValueAsString(hit("/events/2"))), StandardCharsets.UTF_8);
+        buffer = buffer(10, 10, OverflowPolicy.SPILL);
+
+        buffer.start();
+
+        await(() -> buffer.getSentHits() == 2);
+        assertEquals(List.of(List.of("/events/1"), List.of("/events/2")), batches);
+        assertFalse(Files.exists(spillFile()));
+        assertFalse(Files.exists(replayFile()));
+    }
+
+    private StatsHitBuffer buffer(int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        return new StatsHitBuffer(statsClient, new SimpleMeterRegistry(), true, capacity, batchSize, 50,
+                overflowPolicy, spillFile().toString());
+    }
+
+    private void add(int eventId) {
+        buffer.add("ewm-main-service", "/events/" + eventId, "10.0.0.1", TIMESTAMP);
+    }
+
+    private EndpointHit hit(String uri) {
+        return new EndpointHit("ewm-main-service", uri, "10.0.0.1", "2022-09-06 11:00:23");
+    }
+
+    private List<String> uris(List<EndpointHit> hits) {
+        return hits.stream()
+                .map(EndpointHit::getUri)
+                .collect(Collectors.toList());
+    }
+
+    private Path spillFile() {
+        return dir.resolve("stats-hits.spill");
+    }
+
+    private Path replayFile() {
+        return dir.resolve("stats-hits.spill.replay");
+    }
+
+    private void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
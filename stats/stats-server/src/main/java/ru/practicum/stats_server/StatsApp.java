@@ -2,8 +2,10 @@ package ru.practicum.stats_server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class StatsApp {
     public static void main(String[] args) {
         SpringApplication.run(StatsApp.class, args);
@@ -0,0 +1,162 @@
+package ru.practicum.stats_server.columnar;
+
+import ru.practicum.stats_server.model.HitCount;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory hit store made of columnar segments. Segments are skipped by their time bounds and scanned
+ * in tight loops over primitive arrays; unique counts hash the packed IPs. The store is complete only
+ * for hits at or after {@link #getCoveredFrom()}, older ranges must be answered by the durable tier.
+ */
+public class ColumnarHitStore {
+    private static final long IPV6_IDS = 1L << 32;
+
+    private final int segmentCapacity;
+    private final int maxSegments;
+    private final List<HitSegment> segments = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<ByteBuffer, Long> ipv6Ids = new ConcurrentHashMap<>();
+    private final AtomicLong nextIpv6Id = new AtomicLong(IPV6_IDS);
+    private volatile LocalDateTime coveredFrom;
+
+    public ColumnarHitStore(int segmentCapacity, int maxSegments, LocalDateTime coveredFrom) {
+        this.segmentCapacity = segmentCapacity;
+        this.maxSegments = maxSegments;
+        this.coveredFrom = coveredFrom;
+    }
+
+    public LocalDateTime getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    public boolean covers(LocalDateTime start) {
+        return !start.isBefore(coveredFrom);
+    }
+
+    public synchronized void append(int appId, int uriId, byte[] ip, LocalDateTime timestamp) {
+        HitSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.isFull()) {
+            if (segments.size() == maxSegments) {
+                evict(segments.get(0));
+            }
+            segment = new HitSegment(segmentCapacity);
+            segments.add(segment);
+        }
+
+        // The ip is packed after any eviction, so an id released with the evicted segment is never reused
+        segment.append(toSeconds(timestamp), appId, uriId, packIp(ip, segment));
+    }
+
+    public List<HitCount> count(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds, boolean unique) {
+        long from = toSeconds(start);
+        long to = toSeconds(end);
+        BitSet uriFilter = null;
+        if (uriIds != null) {
+            uriFilter = new BitSet();
+            for (Integer uriId : uriIds) {
+                uriFilter.set(uriId);
+            }
+        }
+
+        List<HitCount> result = new ArrayList<>();
+        if (unique) {
+            Map<Long, Set<Long>> ips = new HashMap<>();
+            for (HitSegment segment : segments) {
+                segment.collectIps(from, to, uriFilter, ips);
+            }
+            ips.forEach((key, keyIps) -> result.add(toHitCount(key, keyIps.size())));
+        } else {
+            Map<Long, long[]> hits = new HashMap<>();
+            for (HitSegment segment : segments) {
+                segment.count(from, to, uriFilter, hits);
+            }
+            hits.forEach((key, keyHits) -> result.add(toHitCount(key, keyHits[0])));
+        }
+
+        result.sort(Comparator.comparing(HitCount::getHits).reversed());
+        return result;
+    }
+
+    /**
+     * Drops segments whose hits are all older than the cutoff and moves the coverage start up to it.
+     */
+    public synchronized void evictBefore(LocalDateTime cutoff) {
+        long time = toSeconds(cutoff);
+        for (HitSegment segment : segments) {
+            if (segment.getMaxTime() < time && segment != segments.get(segments.size() - 1)) {
+                segments.remove(segment);
+                releaseIpv6Ids(segment);
+            }
+        }
+
+        if (cutoff.isAfter(coveredFrom)) {
+            coveredFrom = cutoff;
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    int getIpv6IdCount() {
+        return ipv6Ids.size();
+    }
+
+    private void evict(HitSegment segment) {
+        segments.remove(segment);
+        releaseIpv6Ids(segment);
+
+        LocalDateTime evictedUpTo = LocalDateTime.ofEpochSecond(segment.getMaxTime() + 1, 0, ZoneOffset.UTC);
+        if (evictedUpTo.isAfter(coveredFrom)) {
+            coveredFrom = evictedUpTo;
+        }
+    }
+
+    private long packIp(byte[] ip, HitSegment segment) {
+        if (ip.length == 4) {
+            return ((ip[0] & 0xffL) << 24) | ((ip[1] & 0xffL) << 16) | ((ip[2] & 0xffL) << 8) | (ip[3] & 0xffL);
+        }
+        ByteBuffer address = ByteBuffer.wrap(ip.clone());
+        segment.addIpv6Address(address);
+        return ipv6Ids.computeIfAbsent(address, key -> nextIpv6Id.getAndIncrement());
+    }
+
+    /**
+     * Forgets the ids of IPv6 addresses that only the evicted segment held, so the id map stays
+     * bounded by the addresses of the retained segments.
+     */
+    private void releaseIpv6Ids(HitSegment evicted) {
+        if (evicted.getIpv6Addresses().isEmpty()) {
+            return;
+        }
+
+        Set<ByteBuffer> released = new HashSet<>(evicted.getIpv6Addresses());
+        for (HitSegment segment : segments) {
+            released.removeAll(segment.getIpv6Addresses());
+        }
+        released.forEach(ipv6Ids::remove);
+    }
+
+    private static HitCount toHitCount(long key, long hits) {
+        return new HitCount((int) (key >>> 32), (int) key, hits);
+    }
+
+    private static long toSeconds(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.stats_server.columnar;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fixed-size append-only block of hits stored column by column in primitive arrays.
+ * A single writer fills the arrays and then publishes the new size through a volatile write,
+ * so readers may scan the first {@code size} rows without locking. The IPv6 addresses of the segment
+ * are only touched by the writer, so the store can release their ids once no segment holds them.
+ */
+class HitSegment {
+    private final long[] timestamps;
+    private final int[] appIds;
+    private final int[] uriIds;
+    private final long[] ips;
+    private final Set<ByteBuffer> ipv6Addresses = new HashSet<>();
+    private volatile int size;
+    private volatile long minTime = Long.MAX_VALUE;
+    private volatile long maxTime = Long.MIN_VALUE;
+
+    HitSegment(int capacity) {
+        timestamps = new long[capacity];
+        appIds = new int[capacity];
+        uriIds = new int[capacity];
+        ips = new long[capacity];
+    }
+
+    boolean append(long timestamp, int appId, int uriId, long ip) {
+        int index = size;
+        if (index == timestamps.length) {
+            return false;
+        }
+
+        timestamps[index] = timestamp;
+        appIds[index] = appId;
+        uriIds[index] = uriId;
+        ips[index] = ip;
+        minTime = Math.min(minTime, timestamp);
+        maxTime = Math.max(maxTime, timestamp);
+        size = index + 1;
+        return true;
+    }
+
+    boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    void addIpv6Address(ByteBuffer ip) {
+        ipv6Addresses.add(ip);
+    }
+
+    Set<ByteBuffer> getIpv6Addresses() {
+        return ipv6Addresses;
+    }
+
+    long getMaxTime() {
+        return maxTime;
+    }
+
+    void count(long start, long end, BitSet uriFilter, Map<Long, long[]> hits) {
+        int rows = size;
+        if (!overlaps(start, end, rows)) {
+            return;
+        }
+
+        boolean inside = minTime >= start && maxTime <= end;
+        for (int i = 0; i < rows; i++) {
+            if (matches(i, start, end, inside, uriFilter)) {
+                hits.computeIfAbsent(key(appIds[i], uriIds[i]), key -> new long[1])[0]++;
+            }
+        }
+    }
+
+    void collectIps(long start, long end, BitSet uriFilter, Map<Long, Set<Long>> ipsByKey) {
+        int rows = size;
+        if (!overlaps(start, end, rows)) {
+            return;
+        }
+
+        boolean inside = minTime >= start && maxTime <= end;
+        for (int i = 0; i < rows; i++) {
+            if (matches(i, start, end, inside, uriFilter)) {
+                ipsByKey.computeIfAbsent(key(appIds[i], uriIds[i]), key -> new HashSet<>()).add(ips[i]);
+            }
+        }
+    }
+
+    static long key(int appId, int uriId) {
+        return ((long) appId << 32) | (uriId & 0xffffffffL);
+    }
+
+    private boolean overlaps(long start, long end, int rows) {
+        return rows > 0 && maxTime >= start && minTime <= end;
+    }
+
+    private boolean matches(int i, long start, long end, boolean inside, BitSet uriFilter) {
+        if (!inside && (timestamps[i] < start || timestamps[i] > end)) {
+            return false;
+        }
+        return uriFilter == null || uriFilter.get(uriIds[i]);
+    }
+}
@@ -1,8 +1,11 @@
 package ru.practicum.stats_server.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -10,11 +13,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.stats_common.model.EndpointHit;
 import ru.practicum.stats_common.model.ViewStats;
+import ru.practicum.stats_server.model.TopWindow;
 import ru.practicum.stats_server.service.StatsService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,7 +31,10 @@ import java.util.List;
 @RestController
 @RequiredArgsConstructor
 public class StatsController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final StatsService statsService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -30,14 +42,58 @@ public class StatsController {
         statsService.addHit(endpointHit);
     }
 
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void addHits(@RequestBody @NotNull List<@Valid EndpointHit> endpointHits) {
+        statsService.addHits(endpointHits);
+    }
+
+    /**
+     * With {@code approx=true} unique counts may come from HyperLogLog sketches. The flag is a permission,
+     * not a guarantee: ranges answered by the columnar store or with sketches disabled are exact.
+     * A sketched count has a relative standard error of 1.04 / sqrt(4096), about 1.6%, however many
+     * hour and day buckets the range spans.
+     */
     @GetMapping("/stats")
     public List<ViewStats> getStats(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
                                     @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
                                     @RequestParam(required = false) List<String> uris,
-                                    @RequestParam(required = false, defaultValue = "false") Boolean unique) {
+                                    @RequestParam(required = false, defaultValue = "false") Boolean unique,
+                                    @RequestParam(required = false, defaultValue = "false") Boolean approx) {
         if (start.isAfter(end)) {
             throw new IllegalArgumentException("Wrong date interval!");
         }
-        return statsService.getStats(start, end, uris, unique);
+        return statsService.getStats(start, end, uris, unique, approx);
+    }
+
+    @GetMapping(value = "/stats/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamStats(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(required = false, defaultValue = "false") Boolean unique) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Wrong date interval!");
+        }
+        StreamingResponseBody body = outputStream -> {
+            statsService.streamStats(start, end, uris, unique, viewStats -> {
+                try {
+                    outputStream.write(objectMapper.writeValueAsBytes(viewStats));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    @GetMapping("/stats/top")
+    public List<ViewStats> getTop(@RequestParam(defaultValue = "10") @Positive Integer k,
+                                  @RequestParam(defaultValue = "DAY") TopWindow window) {
+        return statsService.getTop(k, window);
     }
 }
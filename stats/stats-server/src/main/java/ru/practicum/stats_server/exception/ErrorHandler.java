@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import javax.validation.ConstraintViolationException;
 import java.time.format.DateTimeParseException;
 
 @RestControllerAdvice
@@ -17,6 +18,7 @@ public class ErrorHandler {
     @ExceptionHandler({
             DateTimeParseException.class,
             MethodArgumentNotValidException.class,
+            ConstraintViolationException.class,
             MethodArgumentTypeMismatchException.class,
             IllegalArgumentException.class,
             ClassCastException.class
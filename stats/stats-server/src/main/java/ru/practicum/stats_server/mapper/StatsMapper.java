@@ -3,10 +3,45 @@ package ru.practicum.stats_server.mapper;
 import ru.practicum.stats_common.model.EndpointHit;
 import ru.practicum.stats_server.model.Stats;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.LocalDateTime;
 
 public class StatsMapper {
-    public static Stats endpointToStats(EndpointHit endpointHit, LocalDateTime timestamp) {
-        return new Stats(null, endpointHit.getApp(), endpointHit.getUri(), endpointHit.getIp(), timestamp);
+    public static Stats endpointToStats(EndpointHit endpointHit, Integer appId, Integer uriId, LocalDateTime timestamp) {
+        return new Stats(null, appId, uriId, ipToBytes(endpointHit.getIp()), timestamp);
+    }
+
+    /**
+     * Encodes an IPv4 address into 4 bytes and an IPv6 address into 16 bytes.
+     * IPv4-mapped IPv6 addresses are stored as IPv4. Anything but hex digits, ':' and '.' is rejected,
+     * and the rest is parsed in brackets, which makes InetAddress fail instead of resolving a host name.
+     */
+    public static byte[] ipToBytes(String ip) {
+        if (ip != null && ip.indexOf(':') >= 0) {
+            if (!ip.matches("[0-9a-fA-F:.]+")) {
+                throw new IllegalArgumentException("Invalid ip address: " + ip);
+            }
+            try {
+                return InetAddress.getByName("[" + ip + "]").getAddress();
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Invalid ip address: " + ip);
+            }
+        }
+
+        if (ip == null || !ip.matches("\\d{1,3}(\\.\\d{1,3}){3}")) {
+            throw new IllegalArgumentException("Invalid ip address: " + ip);
+        }
+
+        String[] octets = ip.split("\\.");
+        byte[] bytes = new byte[octets.length];
+        for (int i = 0; i < octets.length; i++) {
+            int octet = Integer.parseInt(octets[i]);
+            if (octet > 255) {
+                throw new IllegalArgumentException("Invalid ip address: " + ip);
+            }
+            bytes[i] = (byte) octet;
+        }
+        return bytes;
     }
 }
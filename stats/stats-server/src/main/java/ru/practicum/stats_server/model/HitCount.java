@@ -0,0 +1,18 @@
+package ru.practicum.stats_server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class HitCount {
+    private final Integer appId;
+    private final Integer uriId;
+    private final Long hits;
+
+    public List<Integer> getKey() {
+        return List.of(appId, uriId);
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.stats_server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Position in the hit log: every hit of earlier segments and the first {@code index} hits
+ * of {@code segment} are stored in the database.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class HitLogPosition {
+    private final long segment;
+    private final int index;
+}
@@ -0,0 +1,36 @@
+package ru.practicum.stats_server.model;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+public enum PartitionInterval {
+    DAY(ChronoUnit.DAYS, "yyyyMMdd"), MONTH(ChronoUnit.MONTHS, "yyyyMM");
+
+    private final ChronoUnit chronoUnit;
+    private final DateTimeFormatter suffixFormatter;
+
+    PartitionInterval(ChronoUnit chronoUnit, String suffixPattern) {
+        this.chronoUnit = chronoUnit;
+        this.suffixFormatter = DateTimeFormatter.ofPattern(suffixPattern);
+    }
+
+    public LocalDate floor(LocalDate date) {
+        return this == MONTH ? date.withDayOfMonth(1) : date;
+    }
+
+    public LocalDate plus(LocalDate date, long amount) {
+        return date.plus(amount, chronoUnit);
+    }
+
+    public String suffix(LocalDate start) {
+        return suffixFormatter.format(start);
+    }
+
+    public LocalDate parseSuffix(String suffix) {
+        if (this == MONTH) {
+            return LocalDate.parse(suffix + "01", DateTimeFormatter.ofPattern("yyyyMMdd"));
+        }
+        return LocalDate.parse(suffix, suffixFormatter);
+    }
+}
@@ -22,14 +22,14 @@ public class Stats {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
 
-    @Column(name = "app_name", nullable = false)
-    String app;
+    @Column(name = "app_id", nullable = false)
+    Integer appId;
 
-    @Column(nullable = false)
-    String uri;
+    @Column(name = "uri_id", nullable = false)
+    Integer uriId;
 
-    @Column(name = "user_ip", nullable = false, length = 15)
-    String ip;
+    @Column(name = "user_ip", nullable = false)
+    byte[] ip;
 
     @Column(name = "created", nullable = false)
     LocalDateTime timestamp;
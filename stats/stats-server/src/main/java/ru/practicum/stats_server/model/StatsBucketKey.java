@@ -0,0 +1,35 @@
+package ru.practicum.stats_server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class StatsBucketKey implements Comparable<StatsBucketKey> {
+    private static final Comparator<StatsBucketKey> ORDER = Comparator
+            .comparing(StatsBucketKey::getAppId)
+            .thenComparing(StatsBucketKey::getUriId)
+            .thenComparing(StatsBucketKey::getUnit)
+            .thenComparing(StatsBucketKey::getBucketStart);
+
+    private final Integer appId;
+    private final Integer uriId;
+    private final RollupUnit unit;
+    private final LocalDateTime bucketStart;
+
+    public boolean isIn(StatsRange range) {
+        return unit == range.getUnit() &&
+                !bucketStart.isBefore(range.getStart()) &&
+                bucketStart.isBefore(range.getEnd());
+    }
+
+    @Override
+    public int compareTo(StatsBucketKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.stats_server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Half-open time range [start, end). Ranges without a unit are answered from raw hits,
+ * the others from whole rollup buckets of that unit.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class StatsRange {
+    private final RollupUnit unit;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    public boolean isRaw() {
+        return unit == null;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.stats_server.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Sliding window of the trending list. A window is split into buckets and slides one bucket at a time,
+ * so it always holds the current bucket plus {@code buckets - 1} closed ones. Each window bucket is made of
+ * whole buckets of its rollup unit, which the trending tracker loads it from on startup.
+ */
+public enum TopWindow {
+    HOUR(300, 12, RollupUnit.MINUTE), DAY(3600, 24, RollupUnit.HOUR), WEEK(21600, 28, RollupUnit.HOUR);
+
+    private final long bucketSeconds;
+    private final int buckets;
+    private final RollupUnit rollupUnit;
+
+    TopWindow(long bucketSeconds, int buckets, RollupUnit rollupUnit) {
+        this.bucketSeconds = bucketSeconds;
+        this.buckets = buckets;
+        this.rollupUnit = rollupUnit;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public RollupUnit getRollupUnit() {
+        return rollupUnit;
+    }
+
+    public long bucketIndex(LocalDateTime timestamp) {
+        return Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+    }
+
+    public LocalDateTime bucketStart(long bucketIndex) {
+        return LocalDateTime.ofEpochSecond(bucketIndex * bucketSeconds, 0, ZoneOffset.UTC);
+    }
+}
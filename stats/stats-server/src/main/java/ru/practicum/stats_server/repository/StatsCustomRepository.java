@@ -0,0 +1,17 @@
+package ru.practicum.stats_server.repository;
+
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.sketch.HyperLogLog;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StatsCustomRepository {
+    void saveAllBatch(List<Stats> stats);
+
+    List<HitCount> countHits(List<StatsRange> ranges, List<Integer> uriIds);
+
+    Map<List<Integer>, HyperLogLog> sketchDistinctIps(List<StatsRange> ranges, List<Integer> uriIds);
+}
@@ -0,0 +1,74 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+@RequiredArgsConstructor
+public class StatsCustomRepositoryImpl implements StatsCustomRepository {
+    private static final String INSERT_STATS = "INSERT INTO stats (app_id, uri_id, user_ip, created) VALUES (?, ?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${stats.hits.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void saveAllBatch(List<Stats> stats) {
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_STATS, stats, batchSize, (ps, hit) -> {
+            ps.setInt(1, hit.getAppId());
+            ps.setInt(2, hit.getUriId());
+            ps.setBytes(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    @Override
+    public List<HitCount> countHits(List<StatsRange> ranges, List<Integer> uriIds) {
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = "SELECT app_id, uri_id, COUNT(*) AS hits FROM stats WHERE " +
+                StatsRangeConditions.created(ranges, uriIds, parameters) +
+                " GROUP BY app_id, uri_id";
+
+        return jdbcTemplate.query(sql, parameters, (rs, rowNum) ->
+                new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    @Override
+    public Map<List<Integer>, HyperLogLog> sketchDistinctIps(List<StatsRange> ranges, List<Integer> uriIds) {
+        Map<List<Integer>, HyperLogLog> sketches = new HashMap<>();
+        forEachDistinctIp(ranges, uriIds, (key, ip) -> sketches.computeIfAbsent(key, k -> new HyperLogLog())
+                .add(ip));
+        return sketches;
+    }
+
+    private void forEachDistinctIp(List<StatsRange> ranges, List<Integer> uriIds,
+                                   BiConsumer<List<Integer>, byte[]> consumer) {
+        if (ranges.isEmpty()) {
+            return;
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = "SELECT DISTINCT app_id, uri_id, user_ip FROM stats WHERE " +
+                StatsRangeConditions.created(ranges, uriIds, parameters);
+
+        jdbcTemplate.query(sql, parameters, rs -> {
+            consumer.accept(List.of(rs.getInt("app_id"), rs.getInt("uri_id")), rs.getBytes("user_ip"));
+        });
+    }
+}
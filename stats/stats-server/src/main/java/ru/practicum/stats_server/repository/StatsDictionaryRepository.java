@@ -0,0 +1,73 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and extends the stats_apps and stats_uris dictionaries that map app names and uris to integer ids.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsDictionaryRepository {
+    public static final String APPS = "stats_apps";
+    public static final String URIS = "stats_uris";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Integer getOrCreateId(String table, String value) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("value", value);
+        String column = valueColumn(table);
+
+        jdbcTemplate.update("INSERT INTO " + table + " (" + column + ") VALUES (:value) " +
+                "ON CONFLICT (" + column + ") DO NOTHING", parameters);
+        return jdbcTemplate.queryForObject("SELECT id FROM " + table + " WHERE " + column + " = :value",
+                parameters, Integer.class);
+    }
+
+    public Map<String, Integer> findIds(String table, Collection<String> values) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (values.isEmpty()) {
+            return ids;
+        }
+
+        String column = valueColumn(table);
+        jdbcTemplate.query("SELECT id, " + column + " FROM " + table + " WHERE " + column + " IN (:values)",
+                new MapSqlParameterSource("values", values),
+                rs -> {
+                    ids.put(rs.getString(column), rs.getInt("id"));
+                });
+        return ids;
+    }
+
+    public Map<Integer, String> findValues(String table, Collection<Integer> ids) {
+        Map<Integer, String> values = new HashMap<>();
+        if (ids.isEmpty()) {
+            return values;
+        }
+
+        String column = valueColumn(table);
+        jdbcTemplate.query("SELECT id, " + column + " FROM " + table + " WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    values.put(rs.getInt("id"), rs.getString(column));
+                });
+        return values;
+    }
+
+    private String valueColumn(String table) {
+        switch (table) {
+            case APPS:
+                return "name";
+            case URIS:
+                return "uri";
+            default:
+                throw new IllegalArgumentException("Unknown dictionary: " + table);
+        }
+    }
+}
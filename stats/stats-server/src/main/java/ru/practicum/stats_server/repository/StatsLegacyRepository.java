@@ -0,0 +1,44 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats_common.model.EndpointHit;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Reads the stats table of the original layout, renamed to stats_legacy by schema.sql.
+ * Rows are read and deleted from the lowest id up, so a batch is the same in both calls of a transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsLegacyRepository {
+    private static final String SELECT_BATCH = "SELECT app_name, uri, user_ip, created FROM stats_legacy " +
+            "ORDER BY id LIMIT ?";
+    private static final String DELETE_BATCH = "DELETE FROM stats_legacy " +
+            "WHERE id IN (SELECT id FROM stats_legacy ORDER BY id LIMIT ?)";
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean exists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass('stats_legacy') IS NOT NULL",
+                Boolean.class));
+    }
+
+    public List<EndpointHit> findBatch(int limit) {
+        return jdbcTemplate.query(SELECT_BATCH, (rs, rowNum) -> new EndpointHit(rs.getString("app_name"),
+                rs.getString("uri"), rs.getString("user_ip"),
+                rs.getTimestamp("created").toLocalDateTime().format(formatter)), limit);
+    }
+
+    public int deleteBatch(int limit) {
+        return jdbcTemplate.update(DELETE_BATCH, limit);
+    }
+
+    public void drop() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS stats_legacy");
+    }
+}
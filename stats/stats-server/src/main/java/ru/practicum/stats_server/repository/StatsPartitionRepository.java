@@ -0,0 +1,50 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsPartitionRepository {
+    private static final String SELECT_PARTITIONS = "SELECT child.relname FROM pg_inherits AS i " +
+            "JOIN pg_class AS parent ON parent.oid = i.inhparent " +
+            "JOIN pg_class AS child ON child.oid = i.inhrelid " +
+            "WHERE parent.relname = 'stats'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class);
+    }
+
+    /**
+     * Creates the partition as a standalone table, moves the rows of its range out of stats_default
+     * and only then attaches it, since a default partition holding such rows would make the attach fail.
+     * The default partition stays locked against inserts until the transaction ends.
+     */
+    @Transactional
+    public void createPartition(String name, LocalDate from, LocalDate to) {
+        jdbcTemplate.execute("LOCK TABLE stats_default IN SHARE ROW EXCLUSIVE MODE");
+        jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS %s (LIKE stats INCLUDING DEFAULTS, " +
+                "CHECK (created >= '%s' AND created < '%s'))", name, from, to));
+        jdbcTemplate.update(String.format("WITH moved AS (DELETE FROM stats_default " +
+                "WHERE created >= ? AND created < ? RETURNING *) INSERT INTO %s SELECT * FROM moved", name),
+                Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.execute(String.format("ALTER TABLE stats ATTACH PARTITION %s " +
+                "FOR VALUES FROM ('%s') TO ('%s')", name, from, to));
+    }
+
+    public void detachPartition(String name) {
+        jdbcTemplate.execute(String.format("ALTER TABLE stats DETACH PARTITION %s", name));
+    }
+
+    public void dropTable(String name) {
+        jdbcTemplate.execute(String.format("DROP TABLE IF EXISTS %s", name));
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.stats_server.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import ru.practicum.stats_server.model.StatsRange;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+final class StatsRangeConditions {
+    private StatsRangeConditions() {
+    }
+
+    static String buckets(List<StatsRange> ranges, List<Integer> uriIds, MapSqlParameterSource parameters) {
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            conditions.add(String.format(
+                    "(bucket_unit = :unit%1$d AND bucket_start >= :start%1$d AND bucket_start < :end%1$d)", i));
+            parameters.addValue("unit" + i, ranges.get(i).getUnit().name());
+            addBounds(ranges.get(i), i, parameters);
+        }
+        return join(conditions, uriIds, parameters);
+    }
+
+    static String created(List<StatsRange> ranges, List<Integer> uriIds, MapSqlParameterSource parameters) {
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            conditions.add(String.format("(created >= :start%1$d AND created < :end%1$d)", i));
+            addBounds(ranges.get(i), i, parameters);
+        }
+        return join(conditions, uriIds, parameters);
+    }
+
+    private static void addBounds(StatsRange range, int index, MapSqlParameterSource parameters) {
+        parameters.addValue("start" + index, Timestamp.valueOf(range.getStart()))
+                .addValue("end" + index, Timestamp.valueOf(range.getEnd()));
+    }
+
+    private static String join(List<String> conditions, List<Integer> uriIds, MapSqlParameterSource parameters) {
+        String where = "(" + String.join(" OR ", conditions) + ")";
+        if (uriIds != null) {
+            where += " AND uri_id IN (:uriIds)";
+            parameters.addValue("uriIds", uriIds);
+        }
+        return where;
+    }
+}
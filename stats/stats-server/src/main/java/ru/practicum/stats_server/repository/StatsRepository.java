@@ -1,41 +1,85 @@
 package ru.practicum.stats_server.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import ru.practicum.stats_common.model.ViewStats;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.stats_server.model.HitCount;
 import ru.practicum.stats_server.model.Stats;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface StatsRepository extends JpaRepository<Stats, Long> {
-    @Query("SELECT new ru.practicum.stats_common.model.ViewStats(s.app, s.uri, COUNT(DISTINCT s.ip)) " +
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface StatsRepository extends JpaRepository<Stats, Long>, StatsCustomRepository {
+    String STREAM_FETCH_SIZE = "1000";
+
+    @Query("SELECT new ru.practicum.stats_server.model.HitCount(s.appId, s.uriId, COUNT(DISTINCT s.ip)) " +
+            "FROM Stats AS s " +
+            "WHERE s.timestamp BETWEEN ?1 AND ?2 " +
+            "GROUP BY s.appId, s.uriId " +
+            "ORDER BY COUNT(DISTINCT s.ip) DESC")
+    List<HitCount> getAllStatsDistinctIp(LocalDateTime start, LocalDateTime end);
+
+    @Query("SELECT new ru.practicum.stats_server.model.HitCount(s.appId, s.uriId, COUNT(s.ip)) " +
+            "FROM Stats AS s " +
+            "WHERE s.timestamp BETWEEN ?1 AND ?2 " +
+            "GROUP BY s.appId, s.uriId " +
+            "ORDER BY COUNT(s.ip) DESC")
+    List<HitCount> getAllStats(LocalDateTime start, LocalDateTime end);
+
+    @Query("SELECT new ru.practicum.stats_server.model.HitCount(s.appId, s.uriId, COUNT(DISTINCT s.ip)) " +
             "FROM Stats AS s " +
             "WHERE s.timestamp BETWEEN ?1 AND ?2 " +
-            "GROUP BY s.app, s.uri " +
+            "AND s.uriId IN (?3) " +
+            "GROUP BY s.appId, s.uriId " +
             "ORDER BY COUNT(DISTINCT s.ip) DESC")
-    List<ViewStats> getAllStatsDistinctIp(LocalDateTime start, LocalDateTime end);
+    List<HitCount> getStatsByUrisDistinctIp(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
 
-    @Query("SELECT new ru.practicum.stats_common.model.ViewStats(s.app, s.uri, COUNT(s.ip)) " +
+    @Query("SELECT new ru.practicum.stats_server.model.HitCount(s.appId, s.uriId, COUNT(s.ip)) " +
             "FROM Stats AS s " +
             "WHERE s.timestamp BETWEEN ?1 AND ?2 " +
-            "GROUP BY s.app, s.uri " +
+            "AND s.uriId IN (?3) " +
+            "GROUP BY s.appId, s.uriId " +
             "ORDER BY COUNT(s.ip) DESC")
-    List<ViewStats> getAllStats(LocalDateTime start, LocalDateTime end);
+    List<HitCount> getStatsByUris(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
 
-    @Query("SELECT new ru.practicum.stats_common.model.ViewStats(s.app, s.uri, COUNT(DISTINCT s.ip)) " +
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT new ru.practicum.stats_server.model.HitCount(s.appId, s.uriId, COUNT(DISTINCT s.ip)) " +
             "FROM Stats AS s " +
             "WHERE s.timestamp BETWEEN ?1 AND ?2 " +
-            "AND s.uri IN (?3) " +
-            "GROUP BY s.app, s.uri " +
+            "GROUP BY s.appId, s.uriId " +
             "ORDER BY COUNT(DISTINCT s.ip) DESC")
-    List<ViewStats> getStatsByUrisDistinctIp(LocalDateTime start, LocalDateTime end, List<String> uri);
+    Stream<HitCount> streamAllStatsDistinctIp(LocalDateTime start, LocalDateTime end);
 
-    @Query("SELECT new ru.practicum.stats_common.model.ViewStats(s.app, s.uri, COUNT(s.ip)) " +
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT new ru.practicum.stats_server.model.HitCount(s.appId, s.uriId, COUNT(s.ip)) " +
             "FROM Stats AS s " +
             "WHERE s.timestamp BETWEEN ?1 AND ?2 " +
-            "AND s.uri IN (?3) " +
-            "GROUP BY s.app, s.uri " +
+            "GROUP BY s.appId, s.uriId " +
             "ORDER BY COUNT(s.ip) DESC")
-    List<ViewStats> getStatsByUris(LocalDateTime start, LocalDateTime end, List<String> uri);
-}
\ No newline at end of file
+    Stream<HitCount> streamAllStats(LocalDateTime start, LocalDateTime end);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT new ru.practicum.stats_server.model.HitCount(s.appId, s.uriId, COUNT(DISTINCT s.ip)) " +
+            "FROM Stats AS s " +
+            "WHERE s.timestamp BETWEEN ?1 AND ?2 " +
+            "AND s.uriId IN (?3) " +
+            "GROUP BY s.appId, s.uriId " +
+            "ORDER BY COUNT(DISTINCT s.ip) DESC")
+    Stream<HitCount> streamStatsByUrisDistinctIp(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT new ru.practicum.stats_server.model.HitCount(s.appId, s.uriId, COUNT(s.ip)) " +
+            "FROM Stats AS s " +
+            "WHERE s.timestamp BETWEEN ?1 AND ?2 " +
+            "AND s.uriId IN (?3) " +
+            "GROUP BY s.appId, s.uriId " +
+            "ORDER BY COUNT(s.ip) DESC")
+    Stream<HitCount> streamStatsByUris(LocalDateTime start, LocalDateTime end, List<Integer> uriIds);
+
+    List<Stats> findAllByTimestampGreaterThanEqualAndIdGreaterThan(LocalDateTime start, Long id, Pageable pageable);
+}
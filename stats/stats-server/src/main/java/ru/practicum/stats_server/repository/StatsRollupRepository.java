@@ -0,0 +1,94 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.RollupUnit;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsBucketKey;
+import ru.practicum.stats_server.model.StatsRange;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsRollupRepository {
+    private static final String UPSERT_ROLLUP = "INSERT INTO stats_rollups (app_id, uri_id, bucket_unit, bucket_start, hits) " +
+            "VALUES (:appId, :uriId, :unit, :bucketStart, :hits) " +
+            "ON CONFLICT (app_id, uri_id, bucket_unit, bucket_start) " +
+            "DO UPDATE SET hits = stats_rollups.hits + EXCLUDED.hits";
+    private static final String SELECT_BUCKETS = "SELECT app_id, uri_id, bucket_start, hits FROM stats_rollups " +
+            "WHERE bucket_unit = :unit AND bucket_start >= :start AND bucket_start < :end";
+    private static final String DELETE_ROLLUPS_BEFORE = "DELETE FROM stats_rollups WHERE bucket_start < :end";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void increment(List<Stats> hits) {
+        Map<StatsBucketKey, Long> buckets = new TreeMap<>();
+
+        for (Stats hit : hits) {
+            for (RollupUnit unit : RollupUnit.values()) {
+                buckets.merge(new StatsBucketKey(hit.getAppId(), hit.getUriId(), unit, unit.floor(hit.getTimestamp())),
+                        1L, Long::sum);
+            }
+        }
+
+        MapSqlParameterSource[] batch = buckets.entrySet().stream()
+                .map(bucket -> new MapSqlParameterSource()
+                        .addValue("appId", bucket.getKey().getAppId())
+                        .addValue("uriId", bucket.getKey().getUriId())
+                        .addValue("unit", bucket.getKey().getUnit().name())
+                        .addValue("bucketStart", Timestamp.valueOf(bucket.getKey().getBucketStart()))
+                        .addValue("hits", bucket.getValue()))
+                .toArray(MapSqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP, batch);
+    }
+
+    public List<HitCount> sumHits(List<StatsRange> ranges, List<Integer> uriIds) {
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = "SELECT app_id, uri_id, SUM(hits) AS hits FROM stats_rollups WHERE " +
+                StatsRangeConditions.buckets(ranges, uriIds, parameters) +
+                " GROUP BY app_id, uri_id";
+
+        return jdbcTemplate.query(sql, parameters, (rs, rowNum) ->
+                new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    /**
+     * Returns the hits of every bucket of {@code unit} that starts in [start, end), bucket by bucket.
+     */
+    public Map<StatsBucketKey, Long> findBuckets(RollupUnit unit, LocalDateTime start, LocalDateTime end) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("unit", unit.name())
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+
+        Map<StatsBucketKey, Long> buckets = new HashMap<>();
+        jdbcTemplate.query(SELECT_BUCKETS, parameters, rs -> {
+            buckets.put(new StatsBucketKey(rs.getInt("app_id"), rs.getInt("uri_id"), unit,
+                    rs.getTimestamp("bucket_start").toLocalDateTime()), rs.getLong("hits"));
+        });
+        return buckets;
+    }
+
+    /**
+     * Deletes the buckets that start before {@code end}. Callers pass a day boundary, so no bucket
+     * reaches past it.
+     */
+    public int deleteBefore(LocalDateTime end) {
+        return jdbcTemplate.update(DELETE_ROLLUPS_BEFORE,
+                new MapSqlParameterSource("end", Timestamp.valueOf(end)));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats_server.model.StatsBucketKey;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsSketchRepository {
+    private static final String INSERT_SKETCH = "INSERT INTO stats_ip_sketches " +
+            "(app_id, uri_id, bucket_unit, bucket_start, registers) " +
+            "VALUES (:appId, :uriId, :unit, :bucketStart, :registers) " +
+            "ON CONFLICT (app_id, uri_id, bucket_unit, bucket_start) DO NOTHING";
+    private static final String SELECT_SKETCH_FOR_UPDATE = "SELECT registers FROM stats_ip_sketches " +
+            "WHERE app_id = :appId AND uri_id = :uriId AND bucket_unit = :unit AND bucket_start = :bucketStart " +
+            "FOR UPDATE";
+    private static final String UPDATE_SKETCH = "UPDATE stats_ip_sketches SET registers = :registers " +
+            "WHERE app_id = :appId AND uri_id = :uriId AND bucket_unit = :unit AND bucket_start = :bucketStart";
+    private static final String DELETE_SKETCHES_BEFORE = "DELETE FROM stats_ip_sketches WHERE bucket_start < :end";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void merge(Map<StatsBucketKey, HyperLogLog> sketches) {
+        for (Map.Entry<StatsBucketKey, HyperLogLog> sketch : new TreeMap<>(sketches).entrySet()) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("appId", sketch.getKey().getAppId())
+                    .addValue("uriId", sketch.getKey().getUriId())
+                    .addValue("unit", sketch.getKey().getUnit().name())
+                    .addValue("bucketStart", Timestamp.valueOf(sketch.getKey().getBucketStart()))
+                    .addValue("registers", sketch.getValue().toBytes());
+
+            if (jdbcTemplate.update(INSERT_SKETCH, parameters) == 0) {
+                byte[] stored = jdbcTemplate.queryForObject(SELECT_SKETCH_FOR_UPDATE, parameters, byte[].class);
+                parameters.addValue("registers", HyperLogLog.fromBytes(stored).merge(sketch.getValue()).toBytes());
+                jdbcTemplate.update(UPDATE_SKETCH, parameters);
+            }
+        }
+    }
+
+    public Map<List<Integer>, HyperLogLog> load(List<StatsRange> ranges, List<Integer> uriIds) {
+        Map<List<Integer>, HyperLogLog> sketches = new HashMap<>();
+        if (ranges.isEmpty()) {
+            return sketches;
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = "SELECT app_id, uri_id, registers FROM stats_ip_sketches WHERE " +
+                StatsRangeConditions.buckets(ranges, uriIds, parameters);
+
+        jdbcTemplate.query(sql, parameters, rs -> {
+            sketches.merge(List.of(rs.getInt("app_id"), rs.getInt("uri_id")),
+                    HyperLogLog.fromBytes(rs.getBytes("registers")), HyperLogLog::merge);
+        });
+        return sketches;
+    }
+
+    /**
+     * Deletes the sketches of buckets that start before {@code end}. Callers pass a day boundary,
+     * so no bucket reaches past it.
+     */
+    public int deleteBefore(LocalDateTime end) {
+        return jdbcTemplate.update(DELETE_SKETCHES_BEFORE,
+                new MapSqlParameterSource("end", Timestamp.valueOf(end)));
+    }
+}
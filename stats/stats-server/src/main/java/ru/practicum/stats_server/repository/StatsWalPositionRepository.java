@@ -0,0 +1,28 @@
+package ru.practicum.stats_server.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats_server.model.HitLogPosition;
+
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsWalPositionRepository {
+    private static final String SELECT_POSITION = "SELECT segment, record_index FROM stats_wal_position WHERE id = 1";
+    private static final String UPSERT_POSITION = "INSERT INTO stats_wal_position (id, segment, record_index) " +
+            "VALUES (1, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET segment = EXCLUDED.segment, record_index = EXCLUDED.record_index";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<HitLogPosition> find() {
+        return jdbcTemplate.query(SELECT_POSITION, (rs, rowNum) ->
+                new HitLogPosition(rs.getLong("segment"), rs.getInt("record_index"))).stream().findFirst();
+    }
+
+    public void save(HitLogPosition position) {
+        jdbcTemplate.update(UPSERT_POSITION, position.getSegment(), position.getIndex());
+    }
+}
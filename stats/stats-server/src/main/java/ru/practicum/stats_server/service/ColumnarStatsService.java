@@ -0,0 +1,164 @@
+package ru.practicum.stats_server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats_common.model.EndpointHit;
+import ru.practicum.stats_common.model.ViewStats;
+import ru.practicum.stats_server.columnar.ColumnarHitStore;
+import ru.practicum.stats_server.mapper.StatsMapper;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.TopWindow;
+import ru.practicum.stats_server.repository.StatsRepository;
+import ru.practicum.stats_server.wal.HitLogDrainer;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Stats engine that answers recent ranges from an in-memory {@link ColumnarHitStore}. Hits are written
+ * through to {@link StatsServiceImpl}, which keeps PostgreSQL the durable tier and serves older ranges.
+ */
+@Service
+@Primary
+@DependsOn("statsLegacyMigration")
+@ConditionalOnProperty(name = "stats.engine", havingValue = "columnar")
+@RequiredArgsConstructor
+@Slf4j
+public class ColumnarStatsService implements StatsService {
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final StatsServiceImpl statsServiceImpl;
+    private final StatsRepository statsRepository;
+    private final StatsDictionary statsDictionary;
+    private final Optional<HitLogDrainer> hitLogDrainer;
+    private ColumnarHitStore store;
+
+    @Value("${stats.columnar.retention-hours:24}")
+    private int retentionHours;
+
+    @Value("${stats.columnar.segment-capacity:65536}")
+    private int segmentCapacity;
+
+    @Value("${stats.columnar.max-segments:64}")
+    private int maxSegments;
+
+    @Value("${stats.columnar.warm-up-batch-size:5000}")
+    private int warmUpBatchSize;
+
+    @PostConstruct
+    public void warmUp() {
+        hitLogDrainer.ifPresent(HitLogDrainer::drain);
+
+        LocalDateTime coveredFrom = retentionStart();
+        store = new ColumnarHitStore(segmentCapacity, maxSegments, coveredFrom);
+
+        long lastId = 0;
+        long loaded = 0;
+        List<Stats> batch;
+        do {
+            batch = statsRepository.findAllByTimestampGreaterThanEqualAndIdGreaterThan(coveredFrom, lastId,
+                    PageRequest.of(0, warmUpBatchSize, Sort.by("id")));
+            batch.forEach(stats -> store.append(stats.getAppId(), stats.getUriId(), stats.getIp(),
+                    stats.getTimestamp()));
+            loaded += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == warmUpBatchSize);
+
+        log.info("Loaded {} hits since {} into the columnar store", loaded, coveredFrom);
+    }
+
+    @Override
+    public void addHit(EndpointHit endpointHit) {
+        statsServiceImpl.addHit(endpointHit);
+        append(endpointHit);
+    }
+
+    @Override
+    public void addHits(List<EndpointHit> endpointHits) {
+        statsServiceImpl.addHits(endpointHits);
+        endpointHits.forEach(this::append);
+    }
+
+    @Override
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                    Boolean approx) {
+        if (!store.covers(start)) {
+            return statsServiceImpl.getStats(start, end, uris, unique, approx);
+        }
+
+        // Distinct ips are counted exactly from memory here, approx only permits an estimate
+
+        List<Integer> uriIds = null;
+        if (uris != null && !uris.isEmpty()) {
+            uriIds = statsDictionary.findUriIds(uris);
+            if (uriIds.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return toViewStats(store.count(start, end, uriIds, unique));
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                            Consumer<ViewStats> consumer) {
+        if (!store.covers(start)) {
+            statsServiceImpl.streamStats(start, end, uris, unique, consumer);
+            return;
+        }
+
+        getStats(start, end, uris, unique, false).forEach(consumer);
+    }
+
+    @Override
+    public List<ViewStats> getTop(Integer k, TopWindow window) {
+        return statsServiceImpl.getTop(k, window);
+    }
+
+    @Scheduled(fixedDelayString = "${stats.columnar.evict-interval-ms:60000}")
+    public void evict() {
+        store.evictBefore(retentionStart());
+    }
+
+    private void append(EndpointHit endpointHit) {
+        Stats stats = StatsMapper.endpointToStats(endpointHit,
+                statsDictionary.getOrCreateAppId(endpointHit.getApp()),
+                statsDictionary.getOrCreateUriId(endpointHit.getUri()),
+                LocalDateTime.parse(endpointHit.getTimestamp(), formatter));
+        store.append(stats.getAppId(), stats.getUriId(), stats.getIp(), stats.getTimestamp());
+    }
+
+    private List<ViewStats> toViewStats(List<HitCount> hits) {
+        Map<Integer, String> appNames = statsDictionary.getAppNames(hits.stream()
+                .map(HitCount::getAppId)
+                .collect(Collectors.toSet()));
+        Map<Integer, String> uris = statsDictionary.getUris(hits.stream()
+                .map(HitCount::getUriId)
+                .collect(Collectors.toSet()));
+
+        return hits.stream()
+                .map(hit -> new ViewStats(appNames.get(hit.getAppId()), uris.get(hit.getUriId()), hit.getHits()))
+                .collect(Collectors.toList());
+    }
+
+    private LocalDateTime retentionStart() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusHours(retentionHours);
+    }
+}
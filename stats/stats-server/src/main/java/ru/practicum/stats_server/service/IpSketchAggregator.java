@@ -0,0 +1,119 @@
+package ru.practicum.stats_server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats_server.model.RollupUnit;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsBucketKey;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.repository.StatsSketchRepository;
+import ru.practicum.stats_server.sketch.HyperLogLog;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Accumulates unique-IP sketches of committed hits in memory and periodically merges them
+ * into stats_ip_sketches, so that a hit costs no extra statements. A sketch being flushed stays
+ * readable until its merge commits, and a crash still loses the updates of the last flush interval.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IpSketchAggregator {
+    public static final RollupUnit[] SKETCH_UNITS = {RollupUnit.DAY, RollupUnit.HOUR};
+
+    private final StatsSketchRepository statsSketchRepository;
+    private final ConcurrentMap<StatsBucketKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<StatsBucketKey, HyperLogLog> flushing = new ConcurrentHashMap<>();
+
+    public void record(List<Stats> hits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(hits);
+                }
+            });
+        } else {
+            add(hits);
+        }
+    }
+
+    /**
+     * Merges pending sketches into the database. A sketch is put into {@code flushing} before it leaves
+     * {@code pending} and is removed from there only after the merge commits, so a reader that looks at
+     * pending sketches before the database never misses it. Merging a sketch twice is harmless.
+     */
+    @Scheduled(fixedDelayString = "${stats.sketch.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        for (StatsBucketKey key : pending.keySet()) {
+            pending.computeIfPresent(key, (bucket, sketch) -> {
+                flushing.merge(bucket, sketch, HyperLogLog::merge);
+                return null;
+            });
+        }
+
+        if (flushing.isEmpty()) {
+            return;
+        }
+
+        Map<StatsBucketKey, HyperLogLog> batch = new HashMap<>(flushing);
+        try {
+            statsSketchRepository.merge(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} ip sketches: {}", batch.size(), e.getMessage());
+            batch.forEach((key, sketch) -> pending.merge(key, sketch.copy(), HyperLogLog::merge));
+        }
+        batch.forEach(flushing::remove);
+    }
+
+    /**
+     * Returns copies of the sketches that are not in the database yet. Callers read them before loading
+     * stored sketches.
+     */
+    public Map<List<Integer>, HyperLogLog> getPending(List<StatsRange> ranges, List<Integer> uriIds) {
+        Map<List<Integer>, HyperLogLog> sketches = new HashMap<>();
+
+        for (StatsBucketKey key : pending.keySet()) {
+            if (matches(key, ranges, uriIds)) {
+                pending.computeIfPresent(key, (bucket, sketch) -> {
+                    sketches.merge(List.of(key.getAppId(), key.getUriId()), sketch.copy(), HyperLogLog::merge);
+                    return sketch;
+                });
+            }
+        }
+        flushing.forEach((key, sketch) -> {
+            if (matches(key, ranges, uriIds)) {
+                sketches.merge(List.of(key.getAppId(), key.getUriId()), sketch.copy(), HyperLogLog::merge);
+            }
+        });
+        return sketches;
+    }
+
+    private void add(List<Stats> hits) {
+        for (Stats hit : hits) {
+            for (RollupUnit unit : SKETCH_UNITS) {
+                pending.compute(new StatsBucketKey(hit.getAppId(), hit.getUriId(), unit, unit.floor(hit.getTimestamp())),
+                        (key, sketch) -> {
+                            HyperLogLog result = sketch == null ? new HyperLogLog() : sketch;
+                            result.add(hit.getIp());
+                            return result;
+                        });
+            }
+        }
+    }
+
+    private boolean matches(StatsBucketKey key, List<StatsRange> ranges, List<Integer> uriIds) {
+        return (uriIds == null || uriIds.contains(key.getUriId())) && ranges.stream().anyMatch(key::isIn);
+    }
+}
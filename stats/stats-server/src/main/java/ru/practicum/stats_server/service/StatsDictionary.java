@@ -0,0 +1,109 @@
+package ru.practicum.stats_server.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats_server.repository.StatsDictionaryRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the app and uri dictionaries in both directions. New entries are cached only after the transaction
+ * that inserted them commits, so a rolled back insert never leaves a dangling id in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsDictionary {
+    private final StatsDictionaryRepository statsDictionaryRepository;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Integer>> ids = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<Integer, String>> values = new ConcurrentHashMap<>();
+
+    public Integer getOrCreateAppId(String app) {
+        return getOrCreateId(StatsDictionaryRepository.APPS, app);
+    }
+
+    public Integer getOrCreateUriId(String uri) {
+        return getOrCreateId(StatsDictionaryRepository.URIS, uri);
+    }
+
+    public List<Integer> findUriIds(Collection<String> uris) {
+        Map<String, Integer> cached = ids(StatsDictionaryRepository.URIS);
+        List<Integer> result = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+
+        for (String uri : uris) {
+            Integer id = cached.get(uri);
+            if (id == null) {
+                missing.add(uri);
+            } else {
+                result.add(id);
+            }
+        }
+
+        statsDictionaryRepository.findIds(StatsDictionaryRepository.URIS, missing).forEach((uri, id) -> {
+            cache(StatsDictionaryRepository.URIS, uri, id);
+            result.add(id);
+        });
+        return result;
+    }
+
+    public Map<Integer, String> getAppNames(Collection<Integer> appIds) {
+        return getValues(StatsDictionaryRepository.APPS, appIds);
+    }
+
+    public Map<Integer, String> getUris(Collection<Integer> uriIds) {
+        return getValues(StatsDictionaryRepository.URIS, uriIds);
+    }
+
+    private Integer getOrCreateId(String table, String value) {
+        Integer id = ids(table).get(value);
+        if (id != null) {
+            return id;
+        }
+
+        Integer created = statsDictionaryRepository.getOrCreateId(table, value);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache(table, value, created);
+                }
+            });
+        } else {
+            cache(table, value, created);
+        }
+        return created;
+    }
+
+    private Map<Integer, String> getValues(String table, Collection<Integer> keys) {
+        Map<Integer, String> cached = values(table);
+        Set<Integer> missing = keys.stream()
+                .filter(key -> !cached.containsKey(key))
+                .collect(Collectors.toSet());
+
+        statsDictionaryRepository.findValues(table, missing).forEach((id, value) -> cache(table, value, id));
+        return cached;
+    }
+
+    private void cache(String table, String value, Integer id) {
+        ids(table).put(value, id);
+        values(table).put(id, value);
+    }
+
+    private ConcurrentMap<String, Integer> ids(String table) {
+        return ids.computeIfAbsent(table, key -> new ConcurrentHashMap<>());
+    }
+
+    private ConcurrentMap<Integer, String> values(String table) {
+        return values.computeIfAbsent(table, key -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.stats_server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats_common.model.EndpointHit;
+import ru.practicum.stats_server.mapper.StatsMapper;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.repository.StatsLegacyRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves hits of the original stats layout into the dictionary-encoded partitioned table on startup.
+ * Each batch is saved through {@link StatsServiceImpl#saveStats}, so rollups and ip sketches include it,
+ * and deleted from stats_legacy in the same transaction: a restart resumes without counting a hit twice.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsLegacyMigration {
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final StatsLegacyRepository statsLegacyRepository;
+    private final StatsServiceImpl statsServiceImpl;
+    private final StatsDictionary statsDictionary;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${stats.legacy.migration-batch-size:5000}")
+    private int batchSize;
+
+    @PostConstruct
+    public void migrate() {
+        if (!statsLegacyRepository.exists()) {
+            return;
+        }
+
+        long migrated = 0;
+        long skipped = 0;
+        List<EndpointHit> batch;
+        do {
+            batch = statsLegacyRepository.findBatch(batchSize);
+            List<Stats> stats = toStats(batch);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!stats.isEmpty()) {
+                    statsServiceImpl.saveStats(stats);
+                }
+                statsLegacyRepository.deleteBatch(batchSize);
+            });
+            migrated += stats.size();
+            skipped += batch.size() - stats.size();
+        } while (batch.size() == batchSize);
+
+        statsLegacyRepository.drop();
+        log.info("Migrated {} legacy hits, skipped {} with an invalid ip", migrated, skipped);
+    }
+
+    private List<Stats> toStats(List<EndpointHit> endpointHits) {
+        Map<List<String>, Integer> ids = new HashMap<>();
+        List<Stats> stats = new ArrayList<>();
+        for (EndpointHit endpointHit : endpointHits) {
+            Integer appId = ids.computeIfAbsent(List.of("app", endpointHit.getApp()),
+                    key -> statsDictionary.getOrCreateAppId(endpointHit.getApp()));
+            Integer uriId = ids.computeIfAbsent(List.of("uri", endpointHit.getUri()),
+                    key -> statsDictionary.getOrCreateUriId(endpointHit.getUri()));
+            try {
+                stats.add(StatsMapper.endpointToStats(endpointHit, appId, uriId,
+                        LocalDateTime.parse(endpointHit.getTimestamp(), formatter)));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping legacy hit: {}", e.getMessage());
+            }
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.stats_server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats_server.model.PartitionInterval;
+import ru.practicum.stats_server.repository.StatsPartitionRepository;
+import ru.practicum.stats_server.repository.StatsRollupRepository;
+import ru.practicum.stats_server.repository.StatsSketchRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps range partitions of the stats table created ahead of time and detaches the ones
+ * that fall out of the retention window together with their rollups and ip sketches. Hits outside of
+ * existing partitions land in stats_default.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsPartitionManager {
+    private static final String PARTITION_PREFIX = "stats_p";
+
+    private final StatsPartitionRepository statsPartitionRepository;
+    private final StatsRollupRepository statsRollupRepository;
+    private final StatsSketchRepository statsSketchRepository;
+
+    @Value("${stats.partition.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stats.partition.interval:DAY}")
+    private PartitionInterval interval;
+
+    @Value("${stats.partition.ahead:7}")
+    private int ahead;
+
+    @Value("${stats.partition.retention:0}")
+    private int retention;
+
+    @Value("${stats.partition.drop-detached:false}")
+    private boolean dropDetached;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stats.partition.cron:0 0 1 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+
+        Set<String> partitions;
+        try {
+            partitions = new HashSet<>(statsPartitionRepository.findPartitionNames());
+        } catch (DataAccessException e) {
+            log.error("Failed to list stats partitions: {}", e.getMessage());
+            return;
+        }
+
+        LocalDate current = interval.floor(LocalDate.now());
+        for (int i = 0; i <= ahead; i++) {
+            LocalDate from = interval.plus(current, i);
+            String name = PARTITION_PREFIX + interval.suffix(from);
+            if (partitions.contains(name)) {
+                continue;
+            }
+
+            try {
+                statsPartitionRepository.createPartition(name, from, interval.plus(from, 1));
+                log.info("Created stats partition {}", name);
+            } catch (DataAccessException e) {
+                log.error("Failed to create stats partition {}: {}", name, e.getMessage());
+            }
+        }
+
+        if (retention > 0) {
+            detachExpired(partitions, interval.plus(current, -retention));
+        }
+    }
+
+    /**
+     * Detaches expired partitions oldest first and then deletes rollups and ip sketches of the detached range,
+     * so approximate and rollup answers cover the same hits as raw ones. It stops at the first partition
+     * that fails to detach, since older aggregates must not outlive the raw hits that are still attached.
+     * Results already in the result cache age out with its ttl.
+     */
+    private void detachExpired(Set<String> partitions, LocalDate keepFrom) {
+        TreeMap<LocalDate, String> expired = new TreeMap<>();
+        for (String name : partitions) {
+            if (!name.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+
+            LocalDate from;
+            try {
+                from = interval.parseSuffix(name.substring(PARTITION_PREFIX.length()));
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+
+            if (!interval.plus(from, 1).isAfter(keepFrom)) {
+                expired.put(from, name);
+            }
+        }
+
+        LocalDate detachedTo = null;
+        for (Map.Entry<LocalDate, String> partition : expired.entrySet()) {
+            String name = partition.getValue();
+            try {
+                statsPartitionRepository.detachPartition(name);
+                log.info("Detached stats partition {}", name);
+            } catch (DataAccessException e) {
+                log.error("Failed to detach stats partition {}: {}", name, e.getMessage());
+                break;
+            }
+            detachedTo = interval.plus(partition.getKey(), 1);
+
+            if (dropDetached) {
+                try {
+                    statsPartitionRepository.dropTable(name);
+                    log.info("Dropped stats partition {}", name);
+                } catch (DataAccessException e) {
+                    log.error("Failed to drop stats partition {}: {}", name, e.getMessage());
+                }
+            }
+        }
+
+        if (detachedTo != null) {
+            pruneAggregates(detachedTo.atStartOfDay());
+        }
+    }
+
+    private void pruneAggregates(LocalDateTime end) {
+        try {
+            int rollups = statsRollupRepository.deleteBefore(end);
+            int sketches = statsSketchRepository.deleteBefore(end);
+            log.info("Deleted {} rollups and {} ip sketches before {}", rollups, sketches, end);
+        } catch (DataAccessException e) {
+            log.error("Failed to delete stats aggregates before {}: {}", end, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package ru.practicum.stats_server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats_server.model.RollupUnit;
+import ru.practicum.stats_server.model.Stats;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Caches exact stats. Hits per (uris, start) keep the part of a range made of buckets that closed more than
+ * the grace period ago and only ever extend it, so a repeated query with {@code end = now} reads just the open
+ * tail. Distinct ips do not add up across ranges, so only finished counts of fully closed (uris, start, end)
+ * ranges are kept. A hit stored late into a cached part evicts the entries of its uri that it falls into.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsResultCache {
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, Set<Key>> keysByUri = new HashMap<>();
+    private final Set<Key> allUriKeys = new HashSet<>();
+    private Cache<Key, Entry> entries;
+    private volatile LocalDateTime maxClosedEnd = LocalDateTime.MIN;
+
+    @Value("${stats.result-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stats.result-cache.bucket:HOUR}")
+    private RollupUnit bucket;
+
+    @Value("${stats.result-cache.grace-ms:300000}")
+    private long graceMs;
+
+    @Value("${stats.result-cache.max-weight:1000000}")
+    private long maxWeight;
+
+    @Value("${stats.result-cache.ttl-ms:86400000}")
+    private long ttlMs;
+
+    @PostConstruct
+    public void init() {
+        entries = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, Entry entry) -> entry.weight)
+                .expireAfterAccess(Duration.ofMillis(ttlMs))
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> unindex(key))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "statsResults");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the end of the closed part of a range ending at {@code end} (exclusive).
+     */
+    public LocalDateTime closedEnd(LocalDateTime end) {
+        LocalDateTime closed = LocalDateTime.now().minus(Duration.ofMillis(graceMs));
+        return bucket.floor(end.isBefore(closed) ? end : closed);
+    }
+
+    /**
+     * Tells whether a range ending at {@code end} (exclusive) only gets new hits that arrive late.
+     */
+    public boolean isClosed(LocalDateTime end) {
+        return !end.isAfter(LocalDateTime.now().minus(Duration.ofMillis(graceMs)));
+    }
+
+    /**
+     * Returns hits per app and uri over [start, tail end), or null when the cached part already reaches
+     * past {@code closedEnd} and cannot be reused.
+     */
+    public Map<List<Integer>, Long> getHits(LocalDateTime start, LocalDateTime closedEnd, List<Integer> uriIds,
+                                            BiFunction<LocalDateTime, LocalDateTime, Map<List<Integer>, Long>> loader,
+                                            Map<List<Integer>, Long> tail) {
+        Key key = Key.of(start, null, uriIds);
+        Entry entry = get(key);
+
+        Map<List<Integer>, Long> hits = new HashMap<>(tail);
+        synchronized (entry) {
+            if (!extend(key, entry, closedEnd, from -> {
+                loader.apply(from, closedEnd).forEach((id, count) -> entry.hits.merge(id, count, Long::sum));
+                return entry.hits.size();
+            })) {
+                return null;
+            }
+            entry.hits.forEach((id, count) -> hits.merge(id, count, Long::sum));
+        }
+        return hits;
+    }
+
+    /**
+     * Returns distinct ips per app and uri over the closed range [start, end), counted by {@code loader}
+     * on the first request only.
+     */
+    public Map<List<Integer>, Long> getDistinctIps(LocalDateTime start, LocalDateTime end, List<Integer> uriIds,
+                                                   Supplier<Map<List<Integer>, Long>> loader) {
+        Key key = Key.of(start, end, uriIds);
+        Entry entry = get(key);
+
+        synchronized (entry) {
+            extend(key, entry, end, from -> {
+                entry.hits.putAll(loader.get());
+                return entry.hits.size();
+            });
+            return new HashMap<>(entry.hits);
+        }
+    }
+
+    /**
+     * Evicts cached parts that the given hits fall into, once the transaction storing them commits.
+     */
+    public void evictLate(List<Stats> stats) {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime earliest = stats.stream()
+                .map(Stats::getTimestamp)
+                .min(LocalDateTime::compareTo)
+                .orElse(LocalDateTime.MAX);
+        if (!earliest.isBefore(maxClosedEnd)) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(stats);
+                }
+            });
+        } else {
+            evict(stats);
+        }
+    }
+
+    /**
+     * Returns the entry of a key and indexes the key by uri. The key is indexed only once the entry is
+     * visible, and an entry loads nothing before that, so a concurrent eviction never misses loaded counts.
+     */
+    private Entry get(Key key) {
+        Entry entry = entries.get(key, k -> new Entry(k.start));
+        synchronized (keysByUri) {
+            if (key.uriIds == null) {
+                allUriKeys.add(key);
+            } else {
+                key.uriIds.forEach(uriId -> keysByUri.computeIfAbsent(uriId, id -> new HashSet<>()).add(key));
+            }
+        }
+        return entry;
+    }
+
+    private void unindex(Key key) {
+        synchronized (keysByUri) {
+            if (entries.asMap().containsKey(key)) {
+                return;
+            }
+
+            if (key.uriIds == null) {
+                allUriKeys.remove(key);
+            } else {
+                key.uriIds.forEach(uriId -> {
+                    Set<Key> keys = keysByUri.get(uriId);
+                    if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                        keysByUri.remove(uriId);
+                    }
+                });
+            }
+        }
+    }
+
+    private boolean extend(Key key, Entry entry, LocalDateTime closedEnd,
+                           Function<LocalDateTime, Integer> load) {
+        if (entry.closedEnd.isAfter(closedEnd)) {
+            return false;
+        }
+
+        if (entry.closedEnd.isBefore(closedEnd)) {
+            entry.weight = 1 + load.apply(entry.closedEnd);
+            entry.closedEnd = closedEnd;
+            if (closedEnd.isAfter(maxClosedEnd)) {
+                maxClosedEnd = closedEnd;
+            }
+            entries.asMap().replace(key, entry, entry);
+        }
+        return true;
+    }
+
+    private void evict(List<Stats> stats) {
+        Set<Key> candidates = new HashSet<>();
+        synchronized (keysByUri) {
+            candidates.addAll(allUriKeys);
+            stats.forEach(hit -> candidates.addAll(keysByUri.getOrDefault(hit.getUriId(), Set.of())));
+        }
+
+        candidates.forEach(key -> {
+            Entry entry = entries.getIfPresent(key);
+            if (entry == null) {
+                return;
+            }
+
+            // Checked under the entry lock, so an extension that read the range before the commit is evicted too
+            synchronized (entry) {
+                if (stats.stream().anyMatch(hit -> key.covers(hit) && hit.getTimestamp().isBefore(entry.closedEnd))) {
+                    entries.asMap().remove(key, entry);
+                }
+            }
+        });
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class Key {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final List<Integer> uriIds;
+
+        /**
+         * Hits are keyed with a null {@code end}, distinct ips with the end of their range.
+         */
+        static Key of(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+            return new Key(start, end, uriIds == null ? null : uriIds.stream()
+                    .sorted()
+                    .distinct()
+                    .collect(Collectors.toList()));
+        }
+
+        boolean covers(Stats hit) {
+            return !hit.getTimestamp().isBefore(start) && (end == null || hit.getTimestamp().isBefore(end))
+                    && (uriIds == null || uriIds.contains(hit.getUriId()));
+        }
+    }
+
+    private static class Entry {
+        private final Map<List<Integer>, Long> hits = new HashMap<>();
+        private LocalDateTime closedEnd;
+        private int weight = 1;
+
+        Entry(LocalDateTime start) {
+            this.closedEnd = start;
+        }
+    }
+}
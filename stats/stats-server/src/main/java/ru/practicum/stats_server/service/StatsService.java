@@ -2,12 +2,26 @@ package ru.practicum.stats_server.service;
 
 import ru.practicum.stats_common.model.EndpointHit;
 import ru.practicum.stats_common.model.ViewStats;
+import ru.practicum.stats_server.model.TopWindow;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StatsService {
     void addHit(EndpointHit endpointHit);
 
-    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique);
+    void addHits(List<EndpointHit> endpointHits);
+
+    /**
+     * Returns hits per app and uri. {@code approx} only permits an estimate of unique hits: it is used when
+     * ip sketches are enabled and the range is not served from the columnar store, which always counts exactly.
+     */
+    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                             Boolean approx);
+
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                     Consumer<ViewStats> consumer);
+
+    List<ViewStats> getTop(Integer k, TopWindow window);
 }
@@ -1,45 +1,336 @@
 package ru.practicum.stats_server.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.stats_common.model.EndpointHit;
 import ru.practicum.stats_common.model.ViewStats;
 import ru.practicum.stats_server.mapper.StatsMapper;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.RollupUnit;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.model.TopWindow;
 import ru.practicum.stats_server.repository.StatsRepository;
+import ru.practicum.stats_server.repository.StatsRollupRepository;
+import ru.practicum.stats_server.repository.StatsSketchRepository;
+import ru.practicum.stats_server.sketch.HyperLogLog;
+import ru.practicum.stats_server.wal.HitLog;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class StatsServiceImpl implements StatsService {
+    private static final RollupUnit[] ROLLUP_UNITS = RollupUnit.values();
+    private static final int STREAM_CHUNK_SIZE = 1000;
+
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private final StatsRepository statsRepository;
+    private final StatsRollupRepository statsRollupRepository;
+    private final StatsSketchRepository statsSketchRepository;
+    private final IpSketchAggregator ipSketchAggregator;
+    private final StatsDictionary statsDictionary;
+    private final TrendingTracker trendingTracker;
+    private final StatsResultCache statsResultCache;
+    private final Optional<HitLog> hitLog;
+
+    @Value("${stats.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    @Value("${stats.sketch.enabled:true}")
+    private boolean sketchEnabled;
 
     @Override
     @Transactional
     public void addHit(EndpointHit endpointHit) {
-        statsRepository.save(StatsMapper.endpointToStats(endpointHit,
-                LocalDateTime.parse(endpointHit.getTimestamp(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))));
+        write(List.of(toStats(endpointHit, new HashMap<>())));
+    }
+
+    @Override
+    @Transactional
+    public void addHits(List<EndpointHit> endpointHits) {
+        if (endpointHits.isEmpty()) {
+            return;
+        }
+
+        Map<List<String>, Integer> ids = new HashMap<>();
+        write(endpointHits.stream()
+                .map(endpointHit -> toStats(endpointHit, ids))
+                .collect(Collectors.toList()));
+    }
+
+    @Transactional
+    public void saveStats(List<Stats> stats) {
+        statsRepository.saveAllBatch(stats);
+
+        if (rollupEnabled) {
+            statsRollupRepository.increment(stats);
+        }
+
+        if (sketchEnabled) {
+            ipSketchAggregator.record(stats);
+        }
+
+        statsResultCache.evictLate(stats);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
-        if (uris == null || uris.isEmpty()) {
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                    Boolean approx) {
+        List<Integer> uriIds = findUriIds(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return List.of();
+        }
+
+        if (sketchEnabled && unique && approx) {
+            return getApproximateUniqueStats(start, end, uriIds);
+        }
+
+        if (statsResultCache.isEnabled()) {
+            List<ViewStats> cached = getCachedStats(start, end, uriIds, unique);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        if (rollupEnabled && !unique) {
+            return getStatsFromRollups(start, end, uriIds);
+        }
+
+        List<HitCount> hits;
+        if (uriIds == null) {
             if (unique) {
-                return statsRepository.getAllStatsDistinctIp(start, end);
+                hits = statsRepository.getAllStatsDistinctIp(start, end);
             } else {
-                return statsRepository.getAllStats(start, end);
+                hits = statsRepository.getAllStats(start, end);
             }
         } else {
             if (unique) {
-                return statsRepository.getStatsByUrisDistinctIp(start, end, uris);
+                hits = statsRepository.getStatsByUrisDistinctIp(start, end, uriIds);
             } else {
-                return statsRepository.getStatsByUris(start, end, uris);
+                hits = statsRepository.getStatsByUris(start, end, uriIds);
+            }
+        }
+        return toViewStats(hits);
+    }
+
+    /**
+     * Streams exact stats from the raw table through a forward-only cursor. Names are resolved
+     * in chunks, so memory use does not depend on the number of rows.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                            Consumer<ViewStats> consumer) {
+        List<Integer> uriIds = findUriIds(uris);
+        if (uriIds != null && uriIds.isEmpty()) {
+            return;
+        }
+
+        Stream<HitCount> hits;
+        if (uriIds == null) {
+            hits = unique ? statsRepository.streamAllStatsDistinctIp(start, end)
+                    : statsRepository.streamAllStats(start, end);
+        } else {
+            hits = unique ? statsRepository.streamStatsByUrisDistinctIp(start, end, uriIds)
+                    : statsRepository.streamStatsByUris(start, end, uriIds);
+        }
+
+        try (hits) {
+            List<HitCount> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            hits.forEach(hit -> {
+                chunk.add(hit);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    toViewStats(chunk).forEach(consumer);
+                    chunk.clear();
+                }
+            });
+            toViewStats(chunk).forEach(consumer);
+        }
+    }
+
+    @Override
+    public List<ViewStats> getTop(Integer k, TopWindow window) {
+        if (k > trendingTracker.getCapacity()) {
+            throw new IllegalArgumentException("k must not exceed " + trendingTracker.getCapacity());
+        }
+
+        if (!trendingTracker.isEnabled()) {
+            LocalDateTime end = LocalDateTime.now();
+            List<ViewStats> stats = getStats(window.bucketStart(window.bucketIndex(end) - window.getBuckets() + 1),
+                    end, null, false, false);
+            return stats.size() > k ? stats.subList(0, k) : stats;
+        }
+
+        return toViewStats(trendingTracker.getTop(window, k));
+    }
+
+    private List<Integer> findUriIds(List<String> uris) {
+        if (uris == null || uris.isEmpty()) {
+            return null;
+        }
+        return statsDictionary.findUriIds(uris);
+    }
+
+    private List<ViewStats> getStatsFromRollups(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        return toSortedViewStats(sumHits(splitRange(start, end, ROLLUP_UNITS), uriIds));
+    }
+
+    /**
+     * Answers an exact query from the result cache: the closed part comes from memory and only the rest,
+     * at most one bucket plus the grace period, is read from the database.
+     */
+    private List<ViewStats> getCachedStats(LocalDateTime start, LocalDateTime end, List<Integer> uriIds,
+                                           boolean unique) {
+        LocalDateTime tailEnd = end.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+
+        if (unique) {
+            // Distinct counts of an open range cannot be extended, so only closed ranges are cached
+            if (!statsResultCache.isClosed(tailEnd)) {
+                return null;
             }
+            return toSortedViewStats(statsResultCache.getDistinctIps(start, tailEnd, uriIds,
+                    () -> countDistinctIps(start, end, uriIds)));
+        }
+
+        LocalDateTime closedEnd = statsResultCache.closedEnd(tailEnd);
+        if (!closedEnd.isAfter(start)) {
+            return null;
         }
+
+        Map<List<Integer>, Long> hits = statsResultCache.getHits(start, closedEnd, uriIds,
+                (from, to) -> countHits(from, to, uriIds),
+                countHits(closedEnd, tailEnd, uriIds));
+        return hits == null ? null : toSortedViewStats(hits);
+    }
+
+    private Map<List<Integer>, Long> countDistinctIps(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        List<HitCount> hits = uriIds == null ? statsRepository.getAllStatsDistinctIp(start, end)
+                : statsRepository.getStatsByUrisDistinctIp(start, end, uriIds);
+        return hits.stream()
+                .collect(Collectors.toMap(HitCount::getKey, HitCount::getHits));
+    }
+
+    private Map<List<Integer>, Long> countHits(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        List<StatsRange> ranges = new ArrayList<>();
+        splitRange(start, end, rollupEnabled ? ROLLUP_UNITS : new RollupUnit[0], 0, ranges);
+        return sumHits(ranges, uriIds);
+    }
+
+    private Map<List<Integer>, Long> sumHits(List<StatsRange> ranges, List<Integer> uriIds) {
+        Map<List<Integer>, Long> hits = new HashMap<>();
+        statsRollupRepository.sumHits(filterRanges(ranges, false), uriIds)
+                .forEach(stat -> hits.merge(stat.getKey(), stat.getHits(), Long::sum));
+        statsRepository.countHits(filterRanges(ranges, true), uriIds)
+                .forEach(stat -> hits.merge(stat.getKey(), stat.getHits(), Long::sum));
+        return hits;
+    }
+
+    private List<ViewStats> getApproximateUniqueStats(LocalDateTime start, LocalDateTime end, List<Integer> uriIds) {
+        List<StatsRange> ranges = splitRange(start, end, IpSketchAggregator.SKETCH_UNITS);
+        List<StatsRange> sketchRanges = filterRanges(ranges, false);
+
+        // Pending sketches go first: one flushed in between is then found in the database
+        Map<List<Integer>, HyperLogLog> sketches = ipSketchAggregator.getPending(sketchRanges, uriIds);
+        statsSketchRepository.load(sketchRanges, uriIds)
+                .forEach((key, sketch) -> sketches.merge(key, sketch, HyperLogLog::merge));
+        statsRepository.sketchDistinctIps(filterRanges(ranges, true), uriIds)
+                .forEach((key, sketch) -> sketches.merge(key, sketch, HyperLogLog::merge));
+
+        Map<List<Integer>, Long> hits = new HashMap<>();
+        sketches.forEach((key, sketch) -> hits.put(key, sketch.estimate()));
+
+        return toSortedViewStats(hits);
+    }
+
+    private List<ViewStats> toSortedViewStats(Map<List<Integer>, Long> hits) {
+        List<ViewStats> viewStats = toViewStats(hits.entrySet().stream()
+                .map(entry -> new HitCount(entry.getKey().get(0), entry.getKey().get(1), entry.getValue()))
+                .collect(Collectors.toList()));
+        viewStats.sort(Comparator.comparing(ViewStats::getHits).reversed());
+        return viewStats;
+    }
+
+    private List<ViewStats> toViewStats(List<HitCount> hits) {
+        Map<Integer, String> appNames = statsDictionary.getAppNames(hits.stream()
+                .map(HitCount::getAppId)
+                .collect(Collectors.toSet()));
+        Map<Integer, String> uris = statsDictionary.getUris(hits.stream()
+                .map(HitCount::getUriId)
+                .collect(Collectors.toSet()));
+
+        return hits.stream()
+                .map(hit -> new ViewStats(appNames.get(hit.getAppId()), uris.get(hit.getUriId()), hit.getHits()))
+                .collect(Collectors.toList());
+    }
+
+    private List<StatsRange> filterRanges(List<StatsRange> ranges, boolean raw) {
+        return ranges.stream()
+                .filter(range -> range.isRaw() == raw)
+                .collect(Collectors.toList());
+    }
+
+    private List<StatsRange> splitRange(LocalDateTime start, LocalDateTime end, RollupUnit[] units) {
+        List<StatsRange> ranges = new ArrayList<>();
+        splitRange(start, end.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1), units, 0, ranges);
+        return ranges;
+    }
+
+    private void splitRange(LocalDateTime start, LocalDateTime end, RollupUnit[] units, int unitIndex,
+                            List<StatsRange> ranges) {
+        if (!start.isBefore(end)) {
+            return;
+        }
+
+        if (unitIndex == units.length) {
+            ranges.add(new StatsRange(null, start, end));
+            return;
+        }
+
+        RollupUnit unit = units[unitIndex];
+        LocalDateTime bucketsStart = unit.ceil(start);
+        LocalDateTime bucketsEnd = unit.floor(end);
+
+        if (bucketsStart.isBefore(bucketsEnd)) {
+            splitRange(start, bucketsStart, units, unitIndex + 1, ranges);
+            ranges.add(new StatsRange(unit, bucketsStart, bucketsEnd));
+            splitRange(bucketsEnd, end, units, unitIndex + 1, ranges);
+        } else {
+            splitRange(start, end, units, unitIndex + 1, ranges);
+        }
+    }
+
+    private void write(List<Stats> stats) {
+        if (hitLog.isPresent()) {
+            hitLog.get().append(stats);
+        } else {
+            saveStats(stats);
+        }
+        trendingTracker.record(stats);
+    }
+
+    private Stats toStats(EndpointHit endpointHit, Map<List<String>, Integer> ids) {
+        Integer appId = ids.computeIfAbsent(List.of("app", endpointHit.getApp()),
+                key -> statsDictionary.getOrCreateAppId(endpointHit.getApp()));
+        Integer uriId = ids.computeIfAbsent(List.of("uri", endpointHit.getUri()),
+                key -> statsDictionary.getOrCreateUriId(endpointHit.getUri()));
+
+        return StatsMapper.endpointToStats(endpointHit, appId, uriId,
+                LocalDateTime.parse(endpointHit.getTimestamp(), formatter));
     }
 }
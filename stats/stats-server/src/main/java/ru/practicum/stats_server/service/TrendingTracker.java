@@ -0,0 +1,205 @@
+package ru.practicum.stats_server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.model.TopWindow;
+import ru.practicum.stats_server.repository.StatsRepository;
+import ru.practicum.stats_server.repository.StatsRollupRepository;
+import ru.practicum.stats_server.sketch.SpaceSaving;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a {@link SpaceSaving} summary per bucket of every {@link TopWindow}, updated on each committed hit.
+ * The merged top list of a window is rebuilt at most once per refresh interval, so serving it costs O(k).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TrendingTracker implements SmartInitializingSingleton {
+    private final StatsRepository statsRepository;
+    private final StatsRollupRepository statsRollupRepository;
+    private volatile Map<TopWindow, WindowSummary> windows = Map.of();
+
+    @Value("${stats.top.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stats.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    @Value("${stats.top.capacity:1000}")
+    private int capacity;
+
+    @Value("${stats.top.refresh-ms:5000}")
+    private long refreshMs;
+
+    /**
+     * Runs after every singleton is initialized, so hits replayed from the write-ahead log are already stored.
+     * Closed buckets of the window's rollup unit come from stats_rollups in one query per window, and only
+     * the open rollup bucket is counted from raw hits. Without rollups every window bucket is counted from raw hits.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+
+        Map<TopWindow, WindowSummary> loaded = new EnumMap<>(TopWindow.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (TopWindow window : TopWindow.values()) {
+            WindowSummary summary = new WindowSummary(window, capacity, refreshMs);
+            if (rollupEnabled) {
+                loadFromRollups(window, summary, now);
+            } else {
+                loadFromHits(window, summary, now);
+            }
+            loaded.put(window, summary);
+        }
+        windows = loaded;
+        log.info("Loaded trending summaries of {} windows", loaded.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void record(List<Stats> hits) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(hits);
+                }
+            });
+        } else {
+            add(hits);
+        }
+    }
+
+    public List<HitCount> getTop(TopWindow window, int k) {
+        WindowSummary summary = windows.get(window);
+        if (summary == null) {
+            return List.of();
+        }
+
+        return summary.top(k, window.bucketIndex(LocalDateTime.now())).stream()
+                .map(counter -> new HitCount((int) (counter.getKey() >>> 32), (int) counter.getKey(),
+                        counter.getCount()))
+                .collect(Collectors.toList());
+    }
+
+    private void add(List<Stats> hits) {
+        LocalDateTime now = LocalDateTime.now();
+        windows.forEach((window, summary) -> {
+            long current = window.bucketIndex(now);
+            for (Stats hit : hits) {
+                summary.add(Math.min(window.bucketIndex(hit.getTimestamp()), current), current,
+                        key(hit.getAppId(), hit.getUriId()), 1);
+            }
+        });
+    }
+
+    private void loadFromRollups(TopWindow window, WindowSummary summary, LocalDateTime now) {
+        long current = window.bucketIndex(now);
+        LocalDateTime start = window.bucketStart(current - window.getBuckets() + 1);
+        LocalDateTime open = window.getRollupUnit().floor(now);
+
+        statsRollupRepository.findBuckets(window.getRollupUnit(), start, open).forEach((bucket, hits) ->
+                summary.add(window.bucketIndex(bucket.getBucketStart()), current,
+                        key(bucket.getAppId(), bucket.getUriId()), hits));
+
+        List<StatsRange> openRange = List.of(new StatsRange(null, open, window.bucketStart(current + 1)));
+        for (HitCount hit : statsRepository.countHits(openRange, null)) {
+            summary.add(current, current, key(hit.getAppId(), hit.getUriId()), hit.getHits());
+        }
+    }
+
+    private void loadFromHits(TopWindow window, WindowSummary summary, LocalDateTime now) {
+        long current = window.bucketIndex(now);
+        for (long bucket = current - window.getBuckets() + 1; bucket <= current; bucket++) {
+            List<StatsRange> range = List.of(new StatsRange(null, window.bucketStart(bucket),
+                    window.bucketStart(bucket + 1)));
+            for (HitCount hit : statsRepository.countHits(range, null)) {
+                summary.add(bucket, current, key(hit.getAppId(), hit.getUriId()), hit.getHits());
+            }
+        }
+    }
+
+    private static long key(Integer appId, Integer uriId) {
+        return ((long) appId << 32) | (uriId & 0xFFFFFFFFL);
+    }
+
+    static class WindowSummary {
+        private final int capacity;
+        private final long refreshMs;
+        private final SpaceSaving[] buckets;
+        private final long[] bucketIndexes;
+        private List<SpaceSaving.Counter> top = List.of();
+        private long topBucket = Long.MIN_VALUE;
+        private long topBuiltAt;
+        private boolean changed;
+
+        WindowSummary(TopWindow window, int capacity, long refreshMs) {
+            this.capacity = capacity;
+            this.refreshMs = refreshMs;
+            this.buckets = new SpaceSaving[window.getBuckets()];
+            this.bucketIndexes = new long[window.getBuckets()];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new SpaceSaving(capacity);
+                bucketIndexes[i] = Long.MIN_VALUE;
+            }
+        }
+
+        synchronized void add(long bucket, long current, long key, long count) {
+            if (bucket <= current - buckets.length) {
+                return;
+            }
+
+            int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+            if (bucketIndexes[slot] != bucket) {
+                buckets[slot].clear();
+                bucketIndexes[slot] = bucket;
+            }
+            buckets[slot].add(key, count);
+            changed = true;
+        }
+
+        synchronized List<SpaceSaving.Counter> top(int k, long current) {
+            long now = System.currentTimeMillis();
+            if (current != topBucket || (changed && now - topBuiltAt >= refreshMs)) {
+                List<SpaceSaving> live = new ArrayList<>();
+                for (int i = 0; i < buckets.length; i++) {
+                    if (bucketIndexes[i] > current - buckets.length && bucketIndexes[i] <= current) {
+                        live.add(buckets[i]);
+                    }
+                }
+                top = SpaceSaving.merge(live, capacity);
+                topBucket = current;
+                topBuiltAt = now;
+                changed = false;
+            }
+            return top.size() > k ? top.subList(0, k) : top;
+        }
+    }
+}
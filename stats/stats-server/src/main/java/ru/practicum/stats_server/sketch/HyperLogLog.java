@@ -0,0 +1,222 @@
+package ru.practicum.stats_server.sketch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog cardinality sketch with 2^12 one-byte registers (4 KiB).
+ * The relative standard error of {@link #estimate()} is 1.04 / sqrt(4096), about 1.6%,
+ * and it does not grow when sketches of different buckets are merged.
+ * <p>
+ * Most hour and day buckets of a uri see a few distinct IPs, so a sketch starts sparse: it keeps only its
+ * non-zero registers as sorted {@code index << 8 | rank} entries, 3 bytes each when serialized, and switches
+ * to the dense array once it holds more than {@link #SPARSE_LIMIT} of them. Both forms hold the same
+ * registers, so the estimate and its error do not depend on the form.
+ */
+public class HyperLogLog {
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    public static final int SPARSE_LIMIT = REGISTERS / 8;
+
+    private static final int SPARSE_ENTRY_BYTES = 3;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private byte[] registers;
+    private int[] sparse;
+    private int sparseSize;
+
+    public HyperLogLog() {
+        this.sparse = new int[8];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    private HyperLogLog(int[] sparse, int sparseSize) {
+        this.sparse = sparse;
+        this.sparseSize = sparseSize;
+    }
+
+    /**
+     * Reads either serialized form: {@value #REGISTERS} bytes are the dense registers, a multiple of three bytes
+     * up to {@link #SPARSE_LIMIT} entries is the sparse list.
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length == REGISTERS) {
+            return new HyperLogLog(Arrays.copyOf(bytes, REGISTERS));
+        }
+        if (bytes.length % SPARSE_ENTRY_BYTES != 0 || bytes.length / SPARSE_ENTRY_BYTES > SPARSE_LIMIT) {
+            throw new IllegalArgumentException("Wrong sketch size: " + bytes.length);
+        }
+
+        int size = bytes.length / SPARSE_ENTRY_BYTES;
+        int[] entries = new int[Math.max(size, 8)];
+        for (int i = 0; i < size; i++) {
+            int offset = i * SPARSE_ENTRY_BYTES;
+            int index = ((bytes[offset] & 0xff) << 8) | (bytes[offset + 1] & 0xff);
+            if (index >= REGISTERS || (i > 0 && index <= entries[i - 1] >>> 8)) {
+                throw new IllegalArgumentException("Wrong sparse sketch entry: " + index);
+            }
+            entries[i] = (index << 8) | (bytes[offset + 2] & 0xff);
+        }
+        return new HyperLogLog(entries, size);
+    }
+
+    public HyperLogLog copy() {
+        if (registers != null) {
+            return new HyperLogLog(Arrays.copyOf(registers, REGISTERS));
+        }
+        return new HyperLogLog(Arrays.copyOf(sparse, sparse.length), sparseSize);
+    }
+
+    public byte[] toBytes() {
+        if (registers != null) {
+            return Arrays.copyOf(registers, REGISTERS);
+        }
+
+        byte[] bytes = new byte[sparseSize * SPARSE_ENTRY_BYTES];
+        for (int i = 0; i < sparseSize; i++) {
+            int index = sparse[i] >>> 8;
+            int offset = i * SPARSE_ENTRY_BYTES;
+            bytes[offset] = (byte) (index >>> 8);
+            bytes[offset + 1] = (byte) index;
+            bytes[offset + 2] = (byte) sparse[i];
+        }
+        return bytes;
+    }
+
+    public void add(String value) {
+        addHash(hash(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public void add(byte[] value) {
+        addHash(hash(value));
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.registers == null) {
+            for (int i = 0; i < other.sparseSize; i++) {
+                update(other.sparse[i] >>> 8, (byte) other.sparse[i]);
+            }
+            return this;
+        }
+
+        toDense();
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        if (registers != null) {
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = REGISTERS - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0xff));
+            }
+        }
+
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    boolean isSparse() {
+        return registers == null;
+    }
+
+    private void addHash(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        update(index, rank);
+    }
+
+    private void update(int index, byte rank) {
+        if (registers != null) {
+            if (rank > registers[index]) {
+                registers[index] = rank;
+            }
+            return;
+        }
+
+        int position = find(index);
+        if (position >= 0) {
+            if (rank > (byte) sparse[position]) {
+                sparse[position] = (index << 8) | rank;
+            }
+            return;
+        }
+
+        if (sparseSize == SPARSE_LIMIT) {
+            toDense();
+            update(index, rank);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.min(sparse.length * 2, SPARSE_LIMIT));
+        }
+        int insertAt = -position - 1;
+        System.arraycopy(sparse, insertAt, sparse, insertAt + 1, sparseSize - insertAt);
+        sparse[insertAt] = (index << 8) | rank;
+        sparseSize++;
+    }
+
+    private int find(int index) {
+        int low = 0;
+        int high = sparseSize - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleIndex = sparse[middle] >>> 8;
+            if (middleIndex < index) {
+                low = middle + 1;
+            } else if (middleIndex > index) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+
+        registers = new byte[REGISTERS];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 8] = (byte) sparse[i];
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private static long hash(byte[] value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
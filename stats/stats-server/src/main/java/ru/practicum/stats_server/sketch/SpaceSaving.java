@@ -0,0 +1,88 @@
+package ru.practicum.stats_server.sketch;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy hitters summary with a fixed number of counters. Every key seen more than
+ * N / capacity times holds a counter, and a counter overestimates its key by at most its error,
+ * which is itself below N / capacity. An update costs O(log capacity).
+ */
+public class SpaceSaving {
+    private static final Comparator<Counter> BY_COUNT = Comparator.comparingLong(Counter::getCount)
+            .thenComparingLong(Counter::getKey);
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> ordered = new TreeSet<>(BY_COUNT);
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Wrong capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(long key, long count) {
+        Counter counter = counters.get(key);
+        Counter updated;
+        if (counter != null) {
+            ordered.remove(counter);
+            updated = new Counter(key, counter.count + count, counter.error);
+        } else if (counters.size() < capacity) {
+            updated = new Counter(key, count, 0);
+        } else {
+            Counter min = ordered.pollFirst();
+            counters.remove(min.key);
+            updated = new Counter(key, min.count + count, min.count);
+        }
+        counters.put(key, updated);
+        ordered.add(updated);
+    }
+
+    public List<Counter> top(int k) {
+        List<Counter> top = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter> iterator = ordered.descendingIterator();
+        while (iterator.hasNext() && top.size() < k) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    public void clear() {
+        counters.clear();
+        ordered.clear();
+    }
+
+    /**
+     * Sums the counters of several summaries and returns the {@code limit} largest, in descending order.
+     */
+    public static List<Counter> merge(Collection<SpaceSaving> summaries, int limit) {
+        Map<Long, Counter> merged = new HashMap<>();
+        for (SpaceSaving summary : summaries) {
+            summary.counters.values().forEach(counter -> merged.merge(counter.key, counter,
+                    (left, right) -> new Counter(left.key, left.count + right.count, left.error + right.error)));
+        }
+
+        List<Counter> result = new ArrayList<>(merged.values());
+        result.sort(BY_COUNT.reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Counter {
+        private final long key;
+        private final long count;
+        private final long error;
+    }
+}
@@ -0,0 +1,185 @@
+package ru.practicum.stats_server.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats_server.model.HitLogPosition;
+import ru.practicum.stats_server.model.Stats;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log of incoming hits. A hit is acknowledged once it is appended to the active memory-mapped
+ * segment; {@link HitLogDrainer} later moves the records into the database in bulk. Segments left over
+ * from a previous run are recovered on startup and drained before new ones.
+ */
+@Component
+@ConditionalOnProperty(name = "stats.wal.enabled", havingValue = "true")
+@Slf4j
+public class HitLog {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("^hits-(\\d{20})\\.log$");
+
+    private final Deque<HitLogSegment> segments = new ArrayDeque<>();
+    private HitLogSegment active;
+    private long lastSequence;
+
+    @Value("${stats.wal.dir:stats-wal}")
+    private String dir;
+
+    @Value("${stats.wal.segment-records:65536}")
+    private int segmentRecords;
+
+    @Value("${stats.wal.force:false}")
+    private boolean force;
+
+    @PostConstruct
+    public synchronized void recover() {
+        Path directory = Paths.get(dir);
+        List<Path> files;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> paths = Files.list(directory)) {
+                files = paths.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        long pending = 0;
+        for (Path file : files) {
+            Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+            matcher.matches();
+            lastSequence = Long.parseLong(matcher.group(1));
+            HitLogSegment segment = HitLogSegment.recover(file, lastSequence);
+            segments.addLast(segment);
+            pending += segment.getWritten() - segment.getDrained();
+        }
+
+        if (!files.isEmpty()) {
+            log.info("Recovered {} hit log segments with {} undrained hits", files.size(), pending);
+        }
+    }
+
+    public synchronized void append(List<Stats> hits) {
+        for (Stats hit : hits) {
+            if (active == null || !active.append(hit)) {
+                rotate();
+                active.append(hit);
+            }
+        }
+
+        if (force) {
+            active.force();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} undrained hits of the oldest segment that has any, deleting fully
+     * drained sealed segments on the way.
+     */
+    public synchronized List<Stats> peek(int limit) {
+        while (!segments.isEmpty()) {
+            HitLogSegment segment = segments.peekFirst();
+            int written = segment.getWritten();
+
+            if (segment.getDrained() < written) {
+                return segment.read(segment.getDrained(), Math.min(written, segment.getDrained() + limit));
+            }
+
+            if (!segment.isSealed()) {
+                break;
+            }
+
+            segments.removeFirst();
+            segment.delete();
+        }
+        return List.of();
+    }
+
+    /**
+     * Marks hits returned by the last {@link #peek(int)} as stored in the database.
+     */
+    public synchronized void commit(int count) {
+        HitLogSegment segment = segments.peekFirst();
+        if (segment == null) {
+            return;
+        }
+
+        segment.markDrained(segment.getDrained() + count);
+        if (segment.isSealed() && segment.getDrained() == segment.getWritten()) {
+            segments.removeFirst();
+            segment.delete();
+        }
+    }
+
+    /**
+     * Returns the position right after the first {@code count} hits returned by the last {@link #peek(int)}.
+     */
+    public synchronized HitLogPosition positionAfter(int count) {
+        HitLogSegment segment = segments.getFirst();
+        return new HitLogPosition(segment.getSequence(), segment.getDrained() + count);
+    }
+
+    /**
+     * Marks hits up to the position as drained. The database stores the position together with the hits,
+     * so this catches up with batches that committed right before a crash. New segments are numbered
+     * after the position even if the directory was emptied.
+     */
+    public synchronized void skipTo(HitLogPosition position) {
+        lastSequence = Math.max(lastSequence, position.getSegment());
+
+        while (!segments.isEmpty() && segments.peekFirst().getSequence() <= position.getSegment()) {
+            HitLogSegment segment = segments.peekFirst();
+            int drained = segment.getSequence() < position.getSegment() ? segment.getWritten()
+                    : Math.min(position.getIndex(), segment.getWritten());
+            if (drained > segment.getDrained()) {
+                segment.markDrained(drained);
+            }
+
+            if (!segment.isSealed() || segment.getDrained() < segment.getWritten()) {
+                break;
+            }
+            segments.removeFirst();
+            segment.delete();
+        }
+    }
+
+    /**
+     * Copies hits the database keeps rejecting into a file named after their position.
+     * Recovery does not pick such files up, they are left for manual inspection.
+     */
+    public Path quarantine(HitLogPosition position, List<Stats> hits) {
+        Path file = Paths.get(dir, String.format("quarantine-%020d-%010d.log", position.getSegment(),
+                position.getIndex()));
+        HitLogSegment segment = HitLogSegment.create(file, position.getSegment(), hits.size());
+        hits.forEach(segment::append);
+        segment.force();
+        return file;
+    }
+
+    private void rotate() {
+        if (active != null) {
+            active.seal();
+        }
+
+        lastSequence++;
+        active = HitLogSegment.create(Paths.get(dir, String.format("hits-%020d.log", lastSequence)),
+                lastSequence, segmentRecords);
+        segments.addLast(active);
+    }
+}
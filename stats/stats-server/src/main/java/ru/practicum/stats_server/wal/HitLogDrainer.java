@@ -0,0 +1,99 @@
+package ru.practicum.stats_server.wal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats_server.model.HitLogPosition;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.repository.StatsWalPositionRepository;
+import ru.practicum.stats_server.service.StatsServiceImpl;
+
+import javax.annotation.PostConstruct;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Moves hits from the {@link HitLog} into the database in batches. The log position after a batch is stored
+ * in the batch transaction, so hits committed right before a crash are skipped on replay instead of counted
+ * twice. A batch the database keeps rejecting is quarantined after {@code stats.wal.max-attempts} tries;
+ * failures to reach the database are retried without a limit.
+ */
+@Component
+@ConditionalOnProperty(name = "stats.wal.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class HitLogDrainer {
+    private final HitLog hitLog;
+    private final StatsServiceImpl statsServiceImpl;
+    private final StatsWalPositionRepository statsWalPositionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private int failedAttempts;
+
+    @Value("${stats.wal.drain-batch-size:500}")
+    private int batchSize;
+
+    @Value("${stats.wal.max-attempts:5}")
+    private int maxAttempts;
+
+    @PostConstruct
+    public void replay() {
+        statsWalPositionRepository.find().ifPresent(hitLog::skipTo);
+        drain();
+    }
+
+    @Scheduled(fixedDelayString = "${stats.wal.drain-interval-ms:1000}")
+    public synchronized void drain() {
+        int drained = 0;
+
+        try {
+            List<Stats> batch = hitLog.peek(batchSize);
+            while (!batch.isEmpty()) {
+                store(batch, hitLog.positionAfter(batch.size()));
+                hitLog.commit(batch.size());
+                drained += batch.size();
+                batch = hitLog.peek(batchSize);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to drain hit log: {}", e.getMessage());
+        }
+
+        if (drained > 0) {
+            log.debug("Drained {} hits from the hit log", drained);
+        }
+    }
+
+    private void store(List<Stats> batch, HitLogPosition end) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                statsServiceImpl.saveStats(batch);
+                statsWalPositionRepository.save(end);
+            });
+            failedAttempts = 0;
+        } catch (RuntimeException e) {
+            // The head of the log does not move until its batch is stored, so the attempts are all for it
+            if (isUnavailable(e) || ++failedAttempts < maxAttempts) {
+                throw e;
+            }
+
+            HitLogPosition start = new HitLogPosition(end.getSegment(), end.getIndex() - batch.size());
+            Path file = hitLog.quarantine(start, batch);
+            statsWalPositionRepository.save(end);
+            failedAttempts = 0;
+            log.error("Quarantined {} hits to {} after {} failed attempts: {}", batch.size(), file, maxAttempts,
+                    e.getMessage());
+        }
+    }
+
+    private boolean isUnavailable(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException || e instanceof CannotCreateTransactionException;
+    }
+}
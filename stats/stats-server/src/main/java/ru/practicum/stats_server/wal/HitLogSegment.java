@@ -0,0 +1,188 @@
+package ru.practicum.stats_server.wal;
+
+import ru.practicum.stats_server.model.Stats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped segment file of fixed-size hit records. The file header keeps the number of records
+ * already drained into the database. A record is valid once its marker is written, which happens
+ * after its body and checksum, so a torn append is detected and ignored on recovery.
+ */
+class HitLogSegment {
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 48;
+
+    private static final long FILE_MAGIC = 0x4557_4d48_4954_4c31L;
+    private static final int RECORD_MAGIC = 0x4849_5431;
+    private static final int DRAINED_OFFSET = 8;
+    private static final int CRC_OFFSET = 4;
+    private static final int BODY_OFFSET = 8;
+    private static final int BODY_SIZE = 33;
+    private static final int IP_SIZE = 16;
+
+    private final Path path;
+    private final long sequence;
+    private final int capacity;
+    private final MappedByteBuffer buffer;
+    private volatile int written;
+    private int drained;
+    private boolean sealed;
+
+    private HitLogSegment(Path path, long sequence, int capacity, MappedByteBuffer buffer) {
+        this.path = path;
+        this.sequence = sequence;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    static HitLogSegment create(Path path, long sequence, int capacity) {
+        HitLogSegment segment = new HitLogSegment(path, sequence, capacity,
+                map(path, HEADER_SIZE + (long) capacity * RECORD_SIZE));
+        segment.buffer.putLong(0, FILE_MAGIC);
+        segment.buffer.putLong(DRAINED_OFFSET, 0);
+        return segment;
+    }
+
+    static HitLogSegment recover(Path path, long sequence) {
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (size < HEADER_SIZE) {
+            throw new IllegalStateException("Not a hit log segment: " + path);
+        }
+
+        HitLogSegment segment = new HitLogSegment(path, sequence, (int) ((size - HEADER_SIZE) / RECORD_SIZE),
+                map(path, size));
+        if (segment.buffer.getLong(0) != FILE_MAGIC) {
+            throw new IllegalStateException("Not a hit log segment: " + path);
+        }
+
+        int valid = 0;
+        while (valid < segment.capacity && segment.isValid(valid)) {
+            valid++;
+        }
+        segment.written = valid;
+        segment.drained = (int) Math.min(segment.buffer.getLong(DRAINED_OFFSET), valid);
+        segment.sealed = true;
+        return segment;
+    }
+
+    boolean append(Stats stats) {
+        if (sealed || written == capacity) {
+            sealed = true;
+            return false;
+        }
+
+        int offset = recordOffset(written);
+        byte[] ip = stats.getIp();
+        buffer.putInt(offset + BODY_OFFSET, stats.getAppId());
+        buffer.putInt(offset + BODY_OFFSET + 4, stats.getUriId());
+        buffer.putLong(offset + BODY_OFFSET + 8, stats.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        buffer.put(offset + BODY_OFFSET + 16, (byte) ip.length);
+        for (int i = 0; i < IP_SIZE; i++) {
+            buffer.put(offset + BODY_OFFSET + 17 + i, i < ip.length ? ip[i] : 0);
+        }
+        buffer.putInt(offset + CRC_OFFSET, checksum(offset));
+        buffer.putInt(offset, RECORD_MAGIC);
+        written++;
+        return true;
+    }
+
+    List<Stats> read(int from, int to) {
+        List<Stats> records = new ArrayList<>(to - from);
+        for (int index = from; index < to; index++) {
+            int offset = recordOffset(index);
+            byte[] ip = new byte[buffer.get(offset + BODY_OFFSET + 16)];
+            for (int i = 0; i < ip.length; i++) {
+                ip[i] = buffer.get(offset + BODY_OFFSET + 17 + i);
+            }
+            records.add(new Stats(null,
+                    buffer.getInt(offset + BODY_OFFSET),
+                    buffer.getInt(offset + BODY_OFFSET + 4),
+                    ip,
+                    LocalDateTime.ofEpochSecond(buffer.getLong(offset + BODY_OFFSET + 8), 0, ZoneOffset.UTC)));
+        }
+        return records;
+    }
+
+    void markDrained(int count) {
+        drained = count;
+        buffer.putLong(DRAINED_OFFSET, count);
+        buffer.force();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getWritten() {
+        return written;
+    }
+
+    int getDrained() {
+        return drained;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    private boolean isValid(int index) {
+        int offset = recordOffset(index);
+        return buffer.getInt(offset) == RECORD_MAGIC && buffer.getInt(offset + CRC_OFFSET) == checksum(offset);
+    }
+
+    private int checksum(int offset) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset + BODY_OFFSET).limit(offset + BODY_OFFSET + BODY_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static int recordOffset(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    private static MappedByteBuffer map(Path path, long size) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
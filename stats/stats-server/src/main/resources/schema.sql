@@ -1,9 +1,63 @@
-DROP TABLE IF EXISTS stats;
+-- A stats table of the original layout is kept as stats_legacy, StatsLegacyMigration copies its rows
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'stats' AND column_name = 'app_name') THEN
+        ALTER TABLE stats RENAME TO stats_legacy;
+        ALTER TABLE stats_legacy RENAME CONSTRAINT stats_pkey TO stats_legacy_pkey;
+        ALTER TABLE stats_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+    END IF;
+END
+$$;
+
+CREATE TABLE IF NOT EXISTS stats_apps (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS stats_uris (
+    id SERIAL PRIMARY KEY,
+    uri VARCHAR(255) NOT NULL UNIQUE
+);
 
 CREATE TABLE IF NOT EXISTS stats (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    app_name VARCHAR(255) NOT NULL,
-    user_ip VARCHAR(15) NOT NULL,
+    id BIGSERIAL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    user_ip BYTEA NOT NULL,
     created TIMESTAMP NOT NULL,
-    uri VARCHAR(255) NOT NULL
-);
\ No newline at end of file
+    PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+CREATE TABLE IF NOT EXISTS stats_default PARTITION OF stats DEFAULT;
+
+CREATE INDEX IF NOT EXISTS stats_uri_created_idx ON stats (uri_id, created);
+CREATE INDEX IF NOT EXISTS stats_created_idx ON stats (created);
+
+CREATE TABLE IF NOT EXISTS stats_rollups (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket_unit VARCHAR(16) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (app_id, uri_id, bucket_unit, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS stats_rollups_unit_start_idx ON stats_rollups (bucket_unit, bucket_start);
+
+CREATE TABLE IF NOT EXISTS stats_ip_sketches (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    bucket_unit VARCHAR(16) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    registers BYTEA NOT NULL,
+    PRIMARY KEY (app_id, uri_id, bucket_unit, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS stats_ip_sketches_unit_start_idx ON stats_ip_sketches (bucket_unit, bucket_start);
+
+CREATE TABLE IF NOT EXISTS stats_wal_position (
+    id SMALLINT PRIMARY KEY,
+    segment BIGINT NOT NULL,
+    record_index INTEGER NOT NULL
+);
@@ -0,0 +1,156 @@
+package ru.practicum.stats_server.columnar;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats_server.model.HitCount;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarHitStoreTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final byte[] IPV4 = {10, 0, 0, 1};
+
+    @Test
+    void segmentSkipsRangesOutsideItsTimeBounds() {
+        HitSegment segment = segment(100, 150, 199);
+        Map<Long, long[]> hits = new HashMap<>();
+
+        segment.count(0, 99, null, hits);
+        segment.count(200, 300, null, hits);
+
+        assertTrue(hits.isEmpty());
+    }
+
+    @Test
+    void segmentCountsEveryRowInsideTheRangeAndFiltersRowsOnItsEdges() {
+        // Rows arrive out of order, so the bounds are min and max rather than the first and last row
+        HitSegment segment = segment(150, 100, 199, 120);
+
+        assertEquals(4, count(segment, 100, 199, null));
+        assertEquals(4, count(segment, 0, 1000, null));
+        assertEquals(2, count(segment, 100, 120, null));
+        assertEquals(1, count(segment, 121, 150, null));
+        assertEquals(1, count(segment, 199, 199, null));
+
+        BitSet uriFilter = new BitSet();
+        uriFilter.set(2);
+        assertEquals(0, count(segment, 100, 199, uriFilter));
+    }
+
+    @Test
+    void capacityEvictionMovesCoverageToTheEvictedSegmentEnd() {
+        ColumnarHitStore store = new ColumnarHitStore(2, 2, BASE);
+        for (int i = 0; i < 5; i++) {
+            store.append(1, 1, IPV4, BASE.plusSeconds(i));
+        }
+
+        assertEquals(2, store.getSegmentCount());
+        assertEquals(BASE.plusSeconds(2), store.getCoveredFrom());
+        assertFalse(store.covers(BASE.plusSeconds(1)));
+        assertTrue(store.covers(BASE.plusSeconds(2)));
+        assertEquals(Map.of(List.of(1, 1), 3L),
+                hits(store.count(BASE.plusSeconds(2), BASE.plusSeconds(4), null, false)));
+    }
+
+    @Test
+    void evictBeforeDropsOldSegmentsButKeepsTheOpenOne() {
+        ColumnarHitStore store = new ColumnarHitStore(2, 10, BASE);
+        for (int i = 0; i < 5; i++) {
+            store.append(1, 1, IPV4, BASE.plusSeconds(i));
+        }
+
+        store.evictBefore(BASE.plusSeconds(2));
+        assertEquals(2, store.getSegmentCount());
+        assertEquals(BASE.plusSeconds(2), store.getCoveredFrom());
+
+        store.evictBefore(BASE.plusSeconds(1));
+        assertEquals(BASE.plusSeconds(2), store.getCoveredFrom());
+
+        store.evictBefore(BASE.plusHours(1));
+        assertEquals(1, store.getSegmentCount());
+        assertEquals(BASE.plusHours(1), store.getCoveredFrom());
+
+        store.append(1, 1, IPV4, BASE.plusHours(1));
+        assertEquals(Map.of(List.of(1, 1), 1L),
+                hits(store.count(BASE.plusHours(1), BASE.plusHours(2), null, false)));
+    }
+
+    @Test
+    void ipv6AddressesAreCountedByValueAndNeverCollideWithIpv4() {
+        ColumnarHitStore store = new ColumnarHitStore(16, 4, BASE);
+        byte[] ipv6 = new byte[16];
+        ipv6[15] = 1;
+
+        store.append(1, 1, new byte[]{0, 0, 0, 1}, BASE);
+        store.append(1, 1, new byte[]{(byte) 255, (byte) 255, (byte) 255, (byte) 255}, BASE);
+        store.append(1, 1, ipv6.clone(), BASE);
+        store.append(1, 1, ipv6.clone(), BASE.plusSeconds(1));
+        store.append(1, 1, new byte[16], BASE.plusSeconds(1));
+
+        assertEquals(Map.of(List.of(1, 1), 4L), hits(store.count(BASE, BASE.plusSeconds(1), null, true)));
+        assertEquals(Map.of(List.of(1, 1), 5L), hits(store.count(BASE, BASE.plusSeconds(1), null, false)));
+    }
+
+    @Test
+    void ipv6IdsAreReleasedWithTheLastSegmentHoldingThem() {
+        ColumnarHitStore store = new ColumnarHitStore(2, 2, BASE);
+        byte[] evicted = ipv6(1);
+        byte[] shared = ipv6(2);
+
+        store.append(1, 1, evicted, BASE);
+        store.append(1, 1, shared, BASE);
+        store.append(1, 1, shared, BASE.plusSeconds(1));
+        store.append(1, 1, IPV4, BASE.plusSeconds(1));
+        assertEquals(2, store.getIpv6IdCount());
+
+        store.append(1, 1, IPV4, BASE.plusSeconds(2));
+        assertEquals(1, store.getIpv6IdCount());
+
+        store.append(1, 1, shared, BASE.plusSeconds(2));
+        assertEquals(Map.of(List.of(1, 1), 2L),
+                hits(store.count(BASE.plusSeconds(1), BASE.plusSeconds(2), null, true)));
+
+        store.evictBefore(BASE.plusSeconds(2));
+        assertEquals(1, store.getIpv6IdCount());
+
+        store.append(1, 1, IPV4, BASE.plusSeconds(3));
+        store.evictBefore(BASE.plusSeconds(3));
+        assertEquals(0, store.getIpv6IdCount());
+    }
+
+    private byte[] ipv6(int last) {
+        byte[] ip = new byte[16];
+        ip[0] = 0x20;
+        ip[15] = (byte) last;
+        return ip;
+    }
+
+    private Map<List<Integer>, Long> hits(List<HitCount> counts) {
+        return counts.stream()
+                .collect(Collectors.toMap(HitCount::getKey, HitCount::getHits));
+    }
+
+    private HitSegment segment(long... timestamps) {
+        HitSegment segment = new HitSegment(timestamps.length);
+        for (long timestamp : timestamps) {
+            assertTrue(segment.append(timestamp, 1, 1, 1));
+        }
+        assertFalse(segment.append(0, 1, 1, 1));
+        return segment;
+    }
+
+    private long count(HitSegment segment, long start, long end, BitSet uriFilter) {
+        Map<Long, long[]> hits = new HashMap<>();
+        segment.count(start, end, uriFilter, hits);
+        long[] keyHits = hits.get(HitSegment.key(1, 1));
+        return keyHits == null ? 0 : keyHits[0];
+    }
+}
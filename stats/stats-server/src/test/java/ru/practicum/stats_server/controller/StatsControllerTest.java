@@ -0,0 +1,211 @@
+package ru.practicum.stats_server.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
+import ru.practicum.stats_common.model.EndpointHit;
+import ru.practicum.stats_common.model.ViewStats;
+import ru.practicum.stats_server.exception.ErrorHandler;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.TopWindow;
+import ru.practicum.stats_server.repository.StatsRepository;
+import ru.practicum.stats_server.repository.StatsRollupRepository;
+import ru.practicum.stats_server.repository.StatsSketchRepository;
+import ru.practicum.stats_server.service.IpSketchAggregator;
+import ru.practicum.stats_server.service.StatsDictionary;
+import ru.practicum.stats_server.service.StatsResultCache;
+import ru.practicum.stats_server.service.StatsServiceImpl;
+import ru.practicum.stats_server.service.TrendingTracker;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class StatsControllerTest {
+    private static final String TIMESTAMP = "2024-05-01 12:00:00";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private StatsRepository statsRepository;
+    private StatsDictionary statsDictionary;
+    private TrendingTracker trendingTracker;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void createController() {
+        trendingTracker = mock(TrendingTracker.class);
+        when(trendingTracker.getCapacity()).thenReturn(100);
+        when(trendingTracker.isEnabled()).thenReturn(true);
+        when(trendingTracker.getTop(TopWindow.DAY, 100)).thenReturn(List.of(new HitCount(1, 10, 7L)));
+        statsDictionary = mock(StatsDictionary.class);
+        when(statsDictionary.getAppNames(anyCollection())).thenReturn(Map.of(1, "ewm-main-service"));
+        when(statsDictionary.getUris(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Integer>>getArgument(0).stream()
+                        .collect(Collectors.toMap(uriId -> uriId, uriId -> "/events/" + uriId)));
+        statsRepository = mock(StatsRepository.class);
+
+        StatsServiceImpl statsService = new StatsServiceImpl(statsRepository,
+                mock(StatsRollupRepository.class), mock(StatsSketchRepository.class), mock(IpSketchAggregator.class),
+                statsDictionary, trendingTracker, mock(StatsResultCache.class), Optional.empty());
+        // The container constraints of POST /hits are checked by method validation, as in the application context
+        MethodValidationPostProcessor methodValidation = new MethodValidationPostProcessor();
+        methodValidation.afterPropertiesSet();
+        Object controller = methodValidation.postProcessAfterInitialization(
+                new StatsController(statsService, objectMapper), "statsController");
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    @Test
+    void topUpToTheTrackerCapacityIsServed() throws Exception {
+        mockMvc.perform(get("/stats/top").param("k", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uri").value("/events/10"))
+                .andExpect(jsonPath("$[0].hits").value(7));
+    }
+
+    @Test
+    void topAboveTheTrackerCapacityIsABadRequest() throws Exception {
+        mockMvc.perform(get("/stats/top").param("k", "101"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void emptyBatchIsAcceptedWithoutWriting() throws Exception {
+        postHits(List.of())
+                .andExpect(status().isCreated());
+
+        verify(statsRepository, never()).saveAllBatch(anyList());
+        verify(statsDictionary, never()).getOrCreateAppId(anyString());
+        verify(trendingTracker, never()).record(anyList());
+    }
+
+    @Test
+    void mixedAppBatchLooksUpEachDictionaryValueOnce() throws Exception {
+        when(statsDictionary.getOrCreateAppId("ewm-main-service")).thenReturn(1);
+        when(statsDictionary.getOrCreateAppId("ewm-admin")).thenReturn(2);
+        when(statsDictionary.getOrCreateUriId("/events/1")).thenReturn(10);
+        when(statsDictionary.getOrCreateUriId("/events/2")).thenReturn(11);
+
+        postHits(List.of(
+                hit("ewm-main-service", "/events/1"),
+                hit("ewm-admin", "/events/1"),
+                hit("ewm-main-service", "/events/2"),
+                hit("ewm-main-service", "/events/1")))
+                .andExpect(status().isCreated());
+
+        verify(statsDictionary).getOrCreateAppId("ewm-main-service");
+        verify(statsDictionary).getOrCreateAppId("ewm-admin");
+        verify(statsDictionary).getOrCreateUriId("/events/1");
+        verify(statsDictionary).getOrCreateUriId("/events/2");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Stats>> saved = ArgumentCaptor.forClass(List.class);
+        verify(statsRepository).saveAllBatch(saved.capture());
+        assertEquals(List.of(List.of(1, 10), List.of(2, 10), List.of(1, 11), List.of(1, 10)),
+                saved.getValue().stream()
+                        .map(stats -> List.of(stats.getAppId(), stats.getUriId()))
+                        .collect(Collectors.toList()));
+        verify(trendingTracker).record(saved.getValue());
+    }
+
+    @Test
+    void batchWithAnInvalidElementIsRejectedWhole() throws Exception {
+        postHits(List.of(hit("ewm-main-service", "/events/1"), hit("ewm-main-service", "")))
+                .andExpect(status().isBadRequest());
+
+        verify(statsDictionary, never()).getOrCreateAppId(anyString());
+        verify(statsRepository, never()).saveAllBatch(anyList());
+    }
+
+    @Test
+    void streamWritesOneJsonObjectPerLineMatchingGetStats() throws Exception {
+        // More rows than one chunk of names resolved by the stream
+        List<HitCount> hits = IntStream.range(0, 1500)
+                .mapToObj(i -> new HitCount(1, i + 1, 2000L - i))
+                .collect(Collectors.toList());
+        when(statsRepository.getAllStatsDistinctIp(START, END)).thenReturn(hits);
+        when(statsRepository.streamAllStatsDistinctIp(START, END)).thenAnswer(invocation -> hits.stream());
+
+        MvcResult stream = mockMvc.perform(get("/stats/stream")
+                        .param("start", "2024-05-01 00:00:00")
+                        .param("end", "2024-05-02 00:00:00")
+                        .param("unique", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(stream))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String stats = mockMvc.perform(get("/stats")
+                        .param("start", "2024-05-01 00:00:00")
+                        .param("end", "2024-05-02 00:00:00")
+                        .param("unique", "true"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.endsWith("\n"));
+        List<ViewStats> streamed = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            assertTrue(objectMapper.readTree(line).isObject());
+            streamed.add(objectMapper.readValue(line, ViewStats.class));
+        }
+        assertEquals(1500, streamed.size());
+        assertEquals(List.of(objectMapper.readValue(stats, ViewStats[].class)), streamed);
+    }
+
+    @Test
+    void streamOfUnknownUrisIsEmpty() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/stats/stream")
+                        .param("start", "2024-05-01 00:00:00")
+                        .param("end", "2024-05-02 00:00:00")
+                        .param("uris", "/events/unknown"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(stream))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    private ResultActions postHits(List<EndpointHit> hits) throws Exception {
+        return mockMvc.perform(post("/hits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(hits)));
+    }
+
+    private EndpointHit hit(String app, String uri) {
+        return new EndpointHit(app, uri, "10.0.0.1", TIMESTAMP);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.stats_server.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatsMapperTest {
+
+    @Test
+    void encodesIpv4AndIpv6Literals() {
+        assertArrayEquals(new byte[]{10, 0, 0, 1}, StatsMapper.ipToBytes("10.0.0.1"));
+        assertArrayEquals(new byte[]{10, 0, 0, 1}, StatsMapper.ipToBytes("::ffff:10.0.0.1"));
+        assertArrayEquals(new byte[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1}, StatsMapper.ipToBytes("::1"));
+    }
+
+    @Test
+    void rejectsHostNamesWithoutResolvingThem() {
+        for (String ip : new String[]{"zzz:1", "host:80", "ab:cd:ef", "fe80::1%eth0", "localhost", "256.0.0.1"}) {
+            assertThrows(IllegalArgumentException.class, () -> StatsMapper.ipToBytes(ip), ip);
+        }
+    }
+}
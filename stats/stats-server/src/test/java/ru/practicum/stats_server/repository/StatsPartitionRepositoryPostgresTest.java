@@ -0,0 +1,137 @@
+package ru.practicum.stats_server.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats_server.model.PartitionInterval;
+import ru.practicum.stats_server.service.StatsPartitionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs schema.sql in a scratch schema of the PostgreSQL database given by EWM_POSTGRES_URL
+ * (and EWM_POSTGRES_USER, EWM_POSTGRES_PASSWORD), otherwise it is skipped: H2 has no declarative partitioning.
+ */
+@EnabledIfEnvironmentVariable(named = "EWM_POSTGRES_URL", matches = ".+")
+class StatsPartitionRepositoryPostgresTest {
+    private static final String SCHEMA = "stats_partition_test";
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final LocalDate today = LocalDate.now();
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private StatsPartitionRepository statsPartitionRepository;
+
+    @BeforeEach
+    void createSchema() {
+        dataSource = new SingleConnectionDataSource(System.getenv("EWM_POSTGRES_URL"),
+                Objects.requireNonNullElse(System.getenv("EWM_POSTGRES_USER"), "root"),
+                Objects.requireNonNullElse(System.getenv("EWM_POSTGRES_PASSWORD"), "password"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        populator.setSeparator("^^^ END OF SCRIPT ^^^");
+        populator.execute(dataSource);
+
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        statsPartitionRepository = new StatsPartitionRepository(jdbcTemplate);
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        dataSource.destroy();
+    }
+
+    @Test
+    void hitsWithoutAPartitionLandInTheDefaultOneAndMoveWhenItIsCreated() {
+        insertHit(today);
+        insertHit(today.plusDays(1));
+        assertEquals(2, count("stats_default"));
+
+        transactionTemplate.executeWithoutResult(status ->
+                statsPartitionRepository.createPartition(day(today), today, today.plusDays(1)));
+
+        assertTrue(statsPartitionRepository.findPartitionNames().contains(day(today)));
+        assertEquals(1, count(day(today)));
+        assertEquals(1, count("stats_default"));
+        assertEquals(2, count("stats"));
+
+        insertHit(today);
+        assertEquals(2, count(day(today)));
+    }
+
+    @Test
+    void detachedPartitionLeavesTheTableAndDropRemovesIt() {
+        transactionTemplate.executeWithoutResult(status ->
+                statsPartitionRepository.createPartition(day(today), today, today.plusDays(1)));
+        insertHit(today);
+
+        statsPartitionRepository.detachPartition(day(today));
+
+        assertFalse(statsPartitionRepository.findPartitionNames().contains(day(today)));
+        assertEquals(0, count("stats"));
+        assertEquals(1, count(day(today)));
+
+        statsPartitionRepository.dropTable(day(today));
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, day(today)));
+    }
+
+    @Test
+    void managerCreatesPartitionsAheadAndDropsExpiredOnes() {
+        LocalDate expired = today.minusDays(10);
+        transactionTemplate.executeWithoutResult(status ->
+                statsPartitionRepository.createPartition(day(expired), expired, expired.plusDays(1)));
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        StatsPartitionManager manager = new StatsPartitionManager(statsPartitionRepository,
+                new StatsRollupRepository(namedJdbcTemplate), new StatsSketchRepository(namedJdbcTemplate));
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "interval", PartitionInterval.DAY);
+        ReflectionTestUtils.setField(manager, "ahead", 2);
+        ReflectionTestUtils.setField(manager, "retention", 3);
+        ReflectionTestUtils.setField(manager, "dropDetached", true);
+
+        transactionTemplate.executeWithoutResult(status -> manager.maintainPartitions());
+
+        assertTrue(statsPartitionRepository.findPartitionNames().containsAll(
+                List.of(day(today), day(today.plusDays(1)), day(today.plusDays(2)), "stats_default")));
+        assertFalse(statsPartitionRepository.findPartitionNames().contains(day(expired)));
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, day(expired)));
+    }
+
+    private void insertHit(LocalDate day) {
+        jdbcTemplate.update("INSERT INTO stats (app_id, uri_id, user_ip, created) VALUES (1, 1, ?, ?)",
+                new byte[]{10, 0, 0, 1}, Timestamp.valueOf(day.atTime(12, 0)));
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private String day(LocalDate date) {
+        return "stats_p" + DAY_SUFFIX.format(date);
+    }
+}
@@ -0,0 +1,193 @@
+package ru.practicum.stats_server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.stats_common.model.ViewStats;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.repository.StatsRepository;
+import ru.practicum.stats_server.repository.StatsRollupRepository;
+import ru.practicum.stats_server.repository.StatsSketchRepository;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the columnar engine with the SQL path over the same hits. The raw repository is answered
+ * from an in-memory list with the inclusive BETWEEN and the byte-wise DISTINCT of the JPQL queries.
+ */
+class ColumnarStatsServiceTest {
+    private static final byte[][] IPS = {
+            {10, 0, 0, 1},
+            {10, 0, 0, 2},
+            {(byte) 192, (byte) 168, 0, 1},
+            {0x20, 0x01, 0x0d, (byte) 0xb8, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1},
+            {0x20, 0x01, 0x0d, (byte) 0xb8, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2}};
+
+    private final LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(20);
+    private final List<Stats> hits = new ArrayList<>();
+    private StatsRepository statsRepository;
+    private StatsDictionary statsDictionary;
+
+    @BeforeEach
+    void createHits() {
+        statsRepository = mock(StatsRepository.class);
+        statsDictionary = mock(StatsDictionary.class);
+
+        when(statsRepository.getAllStats(any(), any())).thenAnswer(invocation ->
+                count(invocation.getArgument(0), invocation.getArgument(1), null, false));
+        when(statsRepository.getAllStatsDistinctIp(any(), any())).thenAnswer(invocation ->
+                count(invocation.getArgument(0), invocation.getArgument(1), null, true));
+        when(statsRepository.getStatsByUris(any(), any(), anyList())).thenAnswer(invocation ->
+                count(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), false));
+        when(statsRepository.getStatsByUrisDistinctIp(any(), any(), anyList())).thenAnswer(invocation ->
+                count(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), true));
+        when(statsRepository.findAllByTimestampGreaterThanEqualAndIdGreaterThan(any(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    LocalDateTime start = invocation.getArgument(0);
+                    long lastId = invocation.getArgument(1);
+                    Pageable pageable = invocation.getArgument(2);
+                    return hits.stream()
+                            .filter(hit -> !hit.getTimestamp().isBefore(start) && hit.getId() > lastId)
+                            .sorted(Comparator.comparing(Stats::getId))
+                            .limit(pageable.getPageSize())
+                            .collect(Collectors.toList());
+                });
+
+        when(statsDictionary.findUriIds(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> uris = invocation.getArgument(0);
+            return uris.stream()
+                    .map(uri -> Integer.valueOf(uri.substring("/events/".length())))
+                    .collect(Collectors.toList());
+        });
+        when(statsDictionary.getAppNames(anyCollection())).thenAnswer(invocation -> names("app", invocation.getArgument(0)));
+        when(statsDictionary.getUris(anyCollection())).thenAnswer(invocation -> names("/events/", invocation.getArgument(0)));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            hits.add(new Stats((long) i + 1, 1 + random.nextInt(2), 1 + random.nextInt(4),
+                    IPS[random.nextInt(IPS.length)].clone(), base.plusSeconds(random.nextInt(18 * 3600))));
+        }
+    }
+
+    @Test
+    void answersMatchTheSqlPathOnTheSameHits() {
+        StatsServiceImpl statsServiceImpl = new StatsServiceImpl(statsRepository, mock(StatsRollupRepository.class),
+                mock(StatsSketchRepository.class), mock(IpSketchAggregator.class), statsDictionary,
+                mock(TrendingTracker.class), mock(StatsResultCache.class), Optional.empty());
+        ColumnarStatsService columnar = columnar(statsServiceImpl, 256, 64);
+
+        List<List<LocalDateTime>> ranges = List.of(
+                List.of(base, base.plusHours(18)),
+                List.of(base.plusHours(3).plusMinutes(17).plusSeconds(5), base.plusHours(9).plusSeconds(59)),
+                List.of(base.plusHours(5), base.plusHours(5)),
+                List.of(base.plusHours(17), base.plusDays(1)));
+        List<List<String>> uriFilters = new ArrayList<>();
+        uriFilters.add(null);
+        uriFilters.add(List.of("/events/2", "/events/4"));
+
+        for (List<LocalDateTime> range : ranges) {
+            for (List<String> uris : uriFilters) {
+                for (boolean unique : new boolean[]{false, true}) {
+                    Map<String, Long> sql = toMap(statsServiceImpl.getStats(range.get(0), range.get(1), uris,
+                            unique, false));
+                    Map<String, Long> memory = toMap(columnar.getStats(range.get(0), range.get(1), uris,
+                            unique, false));
+
+                    assertFalse(sql.isEmpty());
+                    assertEquals(sql, memory, "range " + range + ", uris " + uris + ", unique " + unique);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rangesStartingBeforeCoverageFallBackToTheSqlPath() {
+        StatsServiceImpl statsServiceImpl = mock(StatsServiceImpl.class);
+        ColumnarStatsService columnar = columnar(statsServiceImpl, 256, 64);
+        LocalDateTime coveredFrom = (LocalDateTime) ReflectionTestUtils.invokeMethod(
+                ReflectionTestUtils.getField(columnar, "store"), "getCoveredFrom");
+        LocalDateTime end = base.plusHours(1);
+        Consumer<ViewStats> consumer = stats -> {
+        };
+
+        columnar.getStats(coveredFrom, end, null, true, false);
+        verifyNoInteractions(statsServiceImpl);
+
+        columnar.getStats(coveredFrom.minusSeconds(1), end, null, true, false);
+        verify(statsServiceImpl).getStats(coveredFrom.minusSeconds(1), end, null, true, false);
+        columnar.streamStats(coveredFrom.minusSeconds(1), end, null, false, consumer);
+        verify(statsServiceImpl).streamStats(coveredFrom.minusSeconds(1), end, null, false, consumer);
+    }
+
+    @Test
+    void capacityEvictionHandsTheEvictedRangeBackToTheSqlPath() {
+        StatsServiceImpl statsServiceImpl = mock(StatsServiceImpl.class);
+        ColumnarStatsService columnar = columnar(statsServiceImpl, 100, 4);
+        Stats oldest = hits.stream()
+                .min(Comparator.comparing(Stats::getTimestamp))
+                .orElseThrow();
+
+        columnar.getStats(oldest.getTimestamp(), base.plusHours(18), null, false, false);
+
+        verify(statsServiceImpl).getStats(oldest.getTimestamp(), base.plusHours(18), null, false, false);
+    }
+
+    private ColumnarStatsService columnar(StatsServiceImpl statsServiceImpl, int segmentCapacity, int maxSegments) {
+        ColumnarStatsService columnar = new ColumnarStatsService(statsServiceImpl, statsRepository, statsDictionary,
+                Optional.empty());
+        ReflectionTestUtils.setField(columnar, "retentionHours", 24);
+        ReflectionTestUtils.setField(columnar, "segmentCapacity", segmentCapacity);
+        ReflectionTestUtils.setField(columnar, "maxSegments", maxSegments);
+        ReflectionTestUtils.setField(columnar, "warmUpBatchSize", 500);
+        columnar.warmUp();
+        return columnar;
+    }
+
+    private List<HitCount> count(LocalDateTime start, LocalDateTime end, List<Integer> uriIds, boolean unique) {
+        return hits.stream()
+                .filter(hit -> !hit.getTimestamp().isBefore(start) && !hit.getTimestamp().isAfter(end))
+                .filter(hit -> uriIds == null || uriIds.contains(hit.getUriId()))
+                .collect(Collectors.groupingBy(Stats::getUriId, Collectors.groupingBy(Stats::getAppId,
+                        Collectors.mapping(hit -> ByteBuffer.wrap(hit.getIp()), Collectors.toList()))))
+                .entrySet().stream()
+                .flatMap(byUri -> byUri.getValue().entrySet().stream()
+                        .map(byApp -> new HitCount(byApp.getKey(), byUri.getKey(), unique
+                                ? byApp.getValue().stream().distinct().count()
+                                : (long) byApp.getValue().size())))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Integer, String> names(String prefix, Collection<Integer> ids) {
+        return ids.stream()
+                .collect(Collectors.toMap(id -> id, id -> prefix + id));
+    }
+
+    private Map<String, Long> toMap(List<ViewStats> stats) {
+        return stats.stream()
+                .collect(Collectors.toMap(view -> view.getApp() + view.getUri(), ViewStats::getHits));
+    }
+}
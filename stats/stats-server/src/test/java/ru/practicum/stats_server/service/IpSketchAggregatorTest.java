@@ -0,0 +1,98 @@
+package ru.practicum.stats_server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats_server.model.RollupUnit;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.repository.StatsSketchRepository;
+import ru.practicum.stats_server.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class IpSketchAggregatorTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final List<StatsRange> DAY = List.of(new StatsRange(RollupUnit.DAY, START, START.plusDays(1)));
+
+    private StatsSketchRepository statsSketchRepository;
+    private IpSketchAggregator aggregator;
+
+    @BeforeEach
+    void createAggregator() {
+        statsSketchRepository = mock(StatsSketchRepository.class);
+        aggregator = new IpSketchAggregator(statsSketchRepository);
+    }
+
+    @Test
+    void hitsAreRecordedOnlyOnceTheirTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            aggregator.record(List.of(hit(1), hit(2)));
+            assertTrue(aggregator.getPending(DAY, null).isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertTrue(aggregator.getPending(DAY, null).isEmpty());
+
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            aggregator.record(List.of(hit(3)));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, estimate(aggregator.getPending(DAY, null)));
+    }
+
+    @Test
+    void flushedSketchesStayVisibleUntilTheMergeReturns() {
+        aggregator.record(List.of(hit(1), hit(2), hit(3)));
+
+        List<Long> seenDuringMerge = new ArrayList<>();
+        doAnswer(invocation -> {
+            seenDuringMerge.add(estimate(aggregator.getPending(DAY, null)));
+            return null;
+        }).when(statsSketchRepository).merge(any());
+
+        aggregator.flush();
+
+        assertEquals(List.of(3L), seenDuringMerge);
+        assertTrue(aggregator.getPending(DAY, null).isEmpty());
+    }
+
+    @Test
+    void failedFlushKeepsSketchesPending() {
+        aggregator.record(List.of(hit(1), hit(2)));
+        doThrow(new IllegalStateException("Database is down")).when(statsSketchRepository).merge(any());
+
+        aggregator.flush();
+        aggregator.record(List.of(hit(3)));
+
+        assertEquals(3, estimate(aggregator.getPending(DAY, null)));
+        aggregator.flush();
+        verify(statsSketchRepository, times(2)).merge(any());
+    }
+
+    private long estimate(Map<List<Integer>, HyperLogLog> sketches) {
+        return sketches.get(List.of(1, 10)).estimate();
+    }
+
+    private Stats hit(int ip) {
+        return new Stats(null, 1, 10, new byte[]{10, 0, 0, (byte) ip}, START.plusHours(1));
+    }
+}
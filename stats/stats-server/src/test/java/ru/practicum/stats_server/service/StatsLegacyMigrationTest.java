@@ -0,0 +1,80 @@
+package ru.practicum.stats_server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats_common.model.EndpointHit;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.repository.StatsLegacyRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsLegacyMigrationTest {
+    private StatsLegacyRepository statsLegacyRepository;
+    private StatsServiceImpl statsServiceImpl;
+    private StatsLegacyMigration migration;
+
+    @BeforeEach
+    void createMigration() {
+        statsLegacyRepository = mock(StatsLegacyRepository.class);
+        statsServiceImpl = mock(StatsServiceImpl.class);
+        StatsDictionary statsDictionary = mock(StatsDictionary.class);
+        when(statsDictionary.getOrCreateAppId(anyString())).thenReturn(1);
+        when(statsDictionary.getOrCreateUriId(anyString())).thenReturn(10);
+
+        migration = new StatsLegacyMigration(statsLegacyRepository, statsServiceImpl, statsDictionary,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(migration, "batchSize", 2);
+    }
+
+    @Test
+    void migratesEveryBatchAndDropsTheLegacyTable() {
+        when(statsLegacyRepository.exists()).thenReturn(true);
+        when(statsLegacyRepository.findBatch(2)).thenReturn(
+                List.of(hit("10.0.0.1"), hit("not an ip")),
+                List.of(hit("10.0.0.3")));
+
+        migration.migrate();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Stats>> saved = ArgumentCaptor.forClass(List.class);
+        InOrder inOrder = inOrder(statsServiceImpl, statsLegacyRepository);
+        inOrder.verify(statsServiceImpl).saveStats(saved.capture());
+        inOrder.verify(statsLegacyRepository).deleteBatch(2);
+        inOrder.verify(statsServiceImpl).saveStats(saved.capture());
+        inOrder.verify(statsLegacyRepository).deleteBatch(2);
+        inOrder.verify(statsLegacyRepository).drop();
+
+        assertEquals(1, saved.getAllValues().get(0).size());
+        Stats stats = saved.getAllValues().get(1).get(0);
+        assertArrayEquals(new byte[]{10, 0, 0, 3}, stats.getIp());
+        assertEquals(LocalDateTime.of(2022, 9, 6, 11, 0, 23), stats.getTimestamp());
+    }
+
+    @Test
+    void doesNothingWithoutALegacyTable() {
+        migration.migrate();
+
+        verify(statsServiceImpl, never()).saveStats(any());
+        verify(statsLegacyRepository, never()).drop();
+    }
+
+    private EndpointHit hit(String ip) {
+        return new EndpointHit("ewm-main-service", "/events/1", ip, "2022-09-06 11:00:23");
+    }
+}
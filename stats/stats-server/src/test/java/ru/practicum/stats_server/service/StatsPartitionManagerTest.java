@@ -0,0 +1,112 @@
+package ru.practicum.stats_server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.stats_server.model.PartitionInterval;
+import ru.practicum.stats_server.repository.StatsPartitionRepository;
+import ru.practicum.stats_server.repository.StatsRollupRepository;
+import ru.practicum.stats_server.repository.StatsSketchRepository;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsPartitionManagerTest {
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final LocalDate today = LocalDate.now();
+    private StatsPartitionRepository statsPartitionRepository;
+    private StatsRollupRepository statsRollupRepository;
+    private StatsSketchRepository statsSketchRepository;
+    private StatsPartitionManager manager;
+
+    @BeforeEach
+    void createManager() {
+        statsPartitionRepository = mock(StatsPartitionRepository.class);
+        statsRollupRepository = mock(StatsRollupRepository.class);
+        statsSketchRepository = mock(StatsSketchRepository.class);
+        manager = new StatsPartitionManager(statsPartitionRepository, statsRollupRepository, statsSketchRepository);
+        ReflectionTestUtils.setField(manager, "enabled", true);
+        ReflectionTestUtils.setField(manager, "interval", PartitionInterval.DAY);
+        ReflectionTestUtils.setField(manager, "ahead", 2);
+    }
+
+    @Test
+    void createsTheMissingPartitionsAhead() {
+        when(statsPartitionRepository.findPartitionNames()).thenReturn(List.of("stats_default", day(today)));
+
+        manager.maintainPartitions();
+
+        verify(statsPartitionRepository, never()).createPartition(eq(day(today)), any(), any());
+        verify(statsPartitionRepository).createPartition(day(today.plusDays(1)), today.plusDays(1), today.plusDays(2));
+        verify(statsPartitionRepository).createPartition(day(today.plusDays(2)), today.plusDays(2), today.plusDays(3));
+        verify(statsPartitionRepository, never()).detachPartition(anyString());
+    }
+
+    @Test
+    void monthPartitionsStartOnTheFirstDay() {
+        ReflectionTestUtils.setField(manager, "interval", PartitionInterval.MONTH);
+        ReflectionTestUtils.setField(manager, "ahead", 1);
+        LocalDate month = today.withDayOfMonth(1);
+
+        manager.maintainPartitions();
+
+        verify(statsPartitionRepository).createPartition("stats_p" + DateTimeFormatter.ofPattern("yyyyMM")
+                .format(month), month, month.plusMonths(1));
+        verify(statsPartitionRepository).createPartition("stats_p" + DateTimeFormatter.ofPattern("yyyyMM")
+                .format(month.plusMonths(1)), month.plusMonths(1), month.plusMonths(2));
+    }
+
+    @Test
+    void detachesExpiredPartitionsOldestFirstAndPrunesTheirAggregates() {
+        ReflectionTestUtils.setField(manager, "retention", 2);
+        ReflectionTestUtils.setField(manager, "dropDetached", true);
+        when(statsPartitionRepository.findPartitionNames()).thenReturn(List.of("stats_default", "stats_pold",
+                day(today.minusDays(2)), day(today.minusDays(3)), day(today.minusDays(5))));
+
+        manager.maintainPartitions();
+
+        InOrder inOrder = inOrder(statsPartitionRepository, statsRollupRepository, statsSketchRepository);
+        inOrder.verify(statsPartitionRepository).detachPartition(day(today.minusDays(5)));
+        inOrder.verify(statsPartitionRepository).dropTable(day(today.minusDays(5)));
+        inOrder.verify(statsPartitionRepository).detachPartition(day(today.minusDays(3)));
+        inOrder.verify(statsPartitionRepository).dropTable(day(today.minusDays(3)));
+        inOrder.verify(statsRollupRepository).deleteBefore(today.minusDays(2).atStartOfDay());
+        inOrder.verify(statsSketchRepository).deleteBefore(today.minusDays(2).atStartOfDay());
+        verify(statsPartitionRepository, never()).detachPartition(day(today.minusDays(2)));
+        verify(statsPartitionRepository, never()).detachPartition("stats_default");
+    }
+
+    @Test
+    void stopsAtTheFirstPartitionThatFailsToDetach() {
+        ReflectionTestUtils.setField(manager, "retention", 2);
+        when(statsPartitionRepository.findPartitionNames()).thenReturn(List.of(
+                day(today.minusDays(3)), day(today.minusDays(5))));
+        doThrow(new DataAccessResourceFailureException("locked"))
+                .when(statsPartitionRepository).detachPartition(day(today.minusDays(5)));
+
+        manager.maintainPartitions();
+
+        verify(statsPartitionRepository, never()).detachPartition(day(today.minusDays(3)));
+        verify(statsPartitionRepository, never()).dropTable(anyString());
+        verify(statsRollupRepository, never()).deleteBefore(any());
+        verify(statsSketchRepository, never()).deleteBefore(any());
+    }
+
+    private String day(LocalDate date) {
+        return "stats_p" + DAY_SUFFIX.format(date);
+    }
+}
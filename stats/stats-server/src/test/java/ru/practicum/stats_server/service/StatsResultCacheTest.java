@@ -0,0 +1,89 @@
+package ru.practicum.stats_server.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.stats_server.model.RollupUnit;
+import ru.practicum.stats_server.model.Stats;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StatsResultCacheTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    private StatsResultCache cache;
+
+    @BeforeEach
+    void createCache() {
+        cache = new StatsResultCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "bucket", RollupUnit.HOUR);
+        ReflectionTestUtils.setField(cache, "graceMs", 300000L);
+        ReflectionTestUtils.setField(cache, "maxWeight", 1000L);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60000L);
+        cache.init();
+    }
+
+    @Test
+    void distinctIpsOfAClosedRangeAreCountedOnceUntilALateHitOfTheirUri() {
+        AtomicInteger loads = new AtomicInteger();
+        Map<List<Integer>, Long> counted = Map.of(List.of(1, 10), 3L);
+
+        assertEquals(counted, distinctIps(loads, counted));
+        assertEquals(counted, distinctIps(loads, counted));
+        assertEquals(1, loads.get());
+
+        cache.evictLate(List.of(hit(20, START.plusHours(1)), hit(10, END), hit(10, START.minusSeconds(1))));
+        distinctIps(loads, counted);
+        assertEquals(1, loads.get());
+
+        cache.evictLate(List.of(hit(10, START.plusHours(1))));
+        distinctIps(loads, counted);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void hitsExtendTheCachedPrefixAndAddTheTail() {
+        List<List<LocalDateTime>> loaded = new ArrayList<>();
+        Map<List<Integer>, Long> tail = Map.of(List.of(1, 10), 1L);
+
+        assertEquals(Map.of(List.of(1, 10), 3L), hits(loaded, START.plusHours(2), tail));
+        assertEquals(Map.of(List.of(1, 10), 5L), hits(loaded, START.plusHours(4), tail));
+        assertEquals(List.of(List.of(START, START.plusHours(2)), List.of(START.plusHours(2), START.plusHours(4))),
+                loaded);
+
+        assertNull(hits(loaded, START.plusHours(3), tail));
+
+        cache.evictLate(List.of(hit(10, START.plusHours(3))));
+        assertEquals(Map.of(List.of(1, 10), 3L), hits(loaded, START.plusHours(2), tail));
+        assertEquals(List.of(START, START.plusHours(2)), loaded.get(2));
+    }
+
+    private Map<List<Integer>, Long> distinctIps(AtomicInteger loads, Map<List<Integer>, Long> counted) {
+        return cache.getDistinctIps(START, END, List.of(10), () -> {
+            loads.incrementAndGet();
+            return counted;
+        });
+    }
+
+    private Map<List<Integer>, Long> hits(List<List<LocalDateTime>> loaded, LocalDateTime closedEnd,
+                                          Map<List<Integer>, Long> tail) {
+        return cache.getHits(START, closedEnd, List.of(10), (from, to) -> {
+            loaded.add(List.of(from, to));
+            return Map.of(List.of(1, 10), to.getHour() - (long) from.getHour());
+        }, tail);
+    }
+
+    private Stats hit(int uriId, LocalDateTime timestamp) {
+        return new Stats(null, 1, uriId, new byte[]{10, 0, 0, 1}, timestamp);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.stats_server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.stats_common.model.ViewStats;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.repository.StatsRepository;
+import ru.practicum.stats_server.repository.StatsRollupRepository;
+import ru.practicum.stats_server.repository.StatsSketchRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that rollup answers match raw answers over the same hits. Both repositories are answered
+ * from an in-memory list: raw queries by the inclusive BETWEEN of the JPQL queries, rollups by the
+ * buckets that start inside a range, so any off-by-one in splitting [start, end] shows up as a difference.
+ */
+class StatsServiceRollupTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    private final List<Stats> hits = new ArrayList<>();
+    private StatsServiceImpl statsService;
+
+    @BeforeEach
+    void createService() {
+        StatsRepository statsRepository = mock(StatsRepository.class);
+        StatsRollupRepository statsRollupRepository = mock(StatsRollupRepository.class);
+        StatsDictionary statsDictionary = mock(StatsDictionary.class);
+
+        when(statsRepository.getAllStats(any(), any())).thenAnswer(invocation -> {
+            LocalDateTime start = invocation.getArgument(0);
+            LocalDateTime end = invocation.getArgument(1);
+            return count(hit -> !hit.getTimestamp().isBefore(start) && !hit.getTimestamp().isAfter(end));
+        });
+        when(statsRepository.countHits(any(), isNull())).thenAnswer(invocation -> {
+            List<StatsRange> ranges = invocation.getArgument(0);
+            return count(hit -> ranges.stream().anyMatch(range -> range.isRaw()
+                    && !hit.getTimestamp().isBefore(range.getStart()) && hit.getTimestamp().isBefore(range.getEnd())));
+        });
+        when(statsRollupRepository.sumHits(any(), isNull())).thenAnswer(invocation -> {
+            List<StatsRange> ranges = invocation.getArgument(0);
+            return count(hit -> ranges.stream().anyMatch(range -> {
+                LocalDateTime bucketStart = range.getUnit().floor(hit.getTimestamp());
+                return !bucketStart.isBefore(range.getStart()) && bucketStart.isBefore(range.getEnd());
+            }));
+        });
+        when(statsDictionary.getAppNames(anyCollection())).thenAnswer(invocation -> names("app", invocation.getArgument(0)));
+        when(statsDictionary.getUris(anyCollection())).thenAnswer(invocation -> names("/events/", invocation.getArgument(0)));
+
+        statsService = new StatsServiceImpl(statsRepository, statsRollupRepository, mock(StatsSketchRepository.class),
+                mock(IpSketchAggregator.class), statsDictionary, mock(TrendingTracker.class),
+                mock(StatsResultCache.class), Optional.empty());
+
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            hits.add(hit(1 + random.nextInt(3), BASE.plusSeconds(random.nextInt(4 * 24 * 3600))));
+        }
+    }
+
+    @Test
+    void rollupAnswersMatchRawAnswersForUnalignedEdges() {
+        List<List<LocalDateTime>> ranges = List.of(
+                List.of(BASE.plusHours(10).plusMinutes(17).plusSeconds(42),
+                        BASE.plusDays(2).plusHours(5).plusMinutes(3).plusSeconds(9)),
+                List.of(BASE.plusMinutes(1).plusSeconds(1), BASE.plusDays(3).minusSeconds(1)),
+                List.of(BASE.plusDays(1), BASE.plusDays(3)),
+                List.of(BASE.plusHours(5), BASE.plusHours(5).plusMinutes(59).plusSeconds(59)),
+                List.of(BASE.plusDays(1).minusSeconds(1), BASE.plusDays(1).plusSeconds(1)),
+                List.of(BASE.plusHours(7).plusSeconds(30), BASE.plusHours(7).plusSeconds(30)),
+                List.of(BASE.plusHours(7).plusMinutes(59).plusSeconds(59), BASE.plusDays(2).plusNanos(500_000_000)),
+                List.of(BASE.minusDays(1), BASE.plusDays(5)));
+
+        for (List<LocalDateTime> range : ranges) {
+            LocalDateTime start = range.get(0);
+            LocalDateTime end = range.get(1);
+            hits.add(hit(1, start));
+            hits.add(hit(1, start.minusSeconds(1)));
+            hits.add(hit(2, end.withNano(0)));
+            hits.add(hit(2, end.withNano(0).plusSeconds(1)));
+        }
+
+        for (List<LocalDateTime> range : ranges) {
+            LocalDateTime start = range.get(0);
+            LocalDateTime end = range.get(1);
+
+            ReflectionTestUtils.setField(statsService, "rollupEnabled", false);
+            Map<String, Long> raw = toMap(statsService.getStats(start, end, null, false, false));
+            ReflectionTestUtils.setField(statsService, "rollupEnabled", true);
+            Map<String, Long> rollups = toMap(statsService.getStats(start, end, null, false, false));
+
+            assertFalse(raw.isEmpty());
+            assertEquals(raw, rollups, "range " + start + " - " + end);
+        }
+    }
+
+    private List<HitCount> count(Predicate<Stats> filter) {
+        return hits.stream()
+                .filter(filter)
+                .collect(Collectors.groupingBy(Stats::getUriId, TreeMap::new, Collectors.counting()))
+                .entrySet().stream()
+                .map(entry -> new HitCount(1, entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Integer, String> names(String prefix, Collection<Integer> ids) {
+        return ids.stream()
+                .collect(Collectors.toMap(id -> id, id -> prefix + id));
+    }
+
+    private Map<String, Long> toMap(List<ViewStats> stats) {
+        return stats.stream()
+                .collect(Collectors.toMap(ViewStats::getUri, ViewStats::getHits));
+    }
+
+    private Stats hit(int uriId, LocalDateTime timestamp) {
+        return new Stats(null, 1, uriId, new byte[]{10, 0, 0, 1}, timestamp);
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.stats_server.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.stats_server.model.HitCount;
+import ru.practicum.stats_server.model.RollupUnit;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.model.StatsBucketKey;
+import ru.practicum.stats_server.model.StatsRange;
+import ru.practicum.stats_server.model.TopWindow;
+import ru.practicum.stats_server.repository.StatsRepository;
+import ru.practicum.stats_server.repository.StatsRollupRepository;
+import ru.practicum.stats_server.sketch.SpaceSaving;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrendingTrackerTest {
+    private static final long CURRENT = 1000;
+
+    @Test
+    void bucketReusesTheSlotOfAnExpiredOne() {
+        TrendingTracker.WindowSummary summary = summary();
+        summary.add(CURRENT, CURRENT, 1, 5);
+
+        long next = CURRENT + TopWindow.HOUR.getBuckets();
+        summary.add(next, next, 2, 3);
+
+        assertEquals(List.of(List.of(2L, 3L)), counts(summary.top(10, next)));
+    }
+
+    @Test
+    void expiredBucketsAreDroppedOnAddAndOnTop() {
+        TrendingTracker.WindowSummary summary = summary();
+        summary.add(CURRENT - TopWindow.HOUR.getBuckets(), CURRENT, 1, 5);
+        assertTrue(summary.top(10, CURRENT).isEmpty());
+
+        summary.add(CURRENT - 3, CURRENT, 2, 4);
+        summary.add(CURRENT, CURRENT, 3, 1);
+        assertEquals(List.of(List.of(2L, 4L), List.of(3L, 1L)), counts(summary.top(10, CURRENT)));
+
+        long later = CURRENT - 3 + TopWindow.HOUR.getBuckets();
+        assertEquals(List.of(List.of(3L, 1L)), counts(summary.top(10, later)));
+    }
+
+    @Test
+    void topMergesCountersAcrossBuckets() {
+        TrendingTracker.WindowSummary summary = summary();
+        summary.add(CURRENT - 2, CURRENT, 1, 2);
+        summary.add(CURRENT - 1, CURRENT, 1, 3);
+        summary.add(CURRENT - 1, CURRENT, 2, 1);
+        summary.add(CURRENT, CURRENT, 2, 3);
+        summary.add(CURRENT, CURRENT, 3, 1);
+
+        assertEquals(List.of(List.of(1L, 5L), List.of(2L, 4L), List.of(3L, 1L)), counts(summary.top(10, CURRENT)));
+        assertEquals(List.of(List.of(1L, 5L)), counts(summary.top(1, CURRENT)));
+    }
+
+    @Test
+    void trackerLoadsStoredHitsAndAddsRecordedOnes() {
+        StatsRepository statsRepository = mock(StatsRepository.class);
+        when(statsRepository.countHits(any(), isNull())).thenAnswer(invocation -> {
+            StatsRange range = invocation.<List<StatsRange>>getArgument(0).get(0);
+            return range.getEnd().isAfter(LocalDateTime.now()) ? List.of(new HitCount(1, 10, 4L)) : List.of();
+        });
+        TrendingTracker tracker = tracker(statsRepository, mock(StatsRollupRepository.class), false);
+        tracker.afterSingletonsInstantiated();
+
+        LocalDateTime now = LocalDateTime.now();
+        tracker.record(List.of(hit(20, now), hit(20, now), hit(10, now), hit(30, now.minusDays(30))));
+
+        assertEquals(List.of(List.of(10, 5L), List.of(20, 2L)), uriHits(tracker.getTop(TopWindow.DAY, 10)));
+    }
+
+    @Test
+    void trackerLoadsClosedBucketsFromRollupsAndOnlyTheOpenOneFromHits() {
+        LocalDateTime now = LocalDateTime.now();
+        StatsRepository statsRepository = mock(StatsRepository.class);
+        when(statsRepository.countHits(any(), isNull())).thenReturn(List.of(new HitCount(1, 10, 1L)));
+        StatsRollupRepository statsRollupRepository = mock(StatsRollupRepository.class);
+        when(statsRollupRepository.findBuckets(eq(RollupUnit.HOUR), any(), any())).thenAnswer(invocation -> Map.of(
+                new StatsBucketKey(1, 20, RollupUnit.HOUR, RollupUnit.HOUR.floor(now.minusHours(2))), 6L,
+                new StatsBucketKey(1, 10, RollupUnit.HOUR, RollupUnit.HOUR.floor(now.minusDays(3))), 9L));
+        when(statsRollupRepository.findBuckets(eq(RollupUnit.MINUTE), any(), any())).thenReturn(Map.of());
+
+        TrendingTracker tracker = tracker(statsRepository, statsRollupRepository, true);
+        tracker.afterSingletonsInstantiated();
+
+        verify(statsRepository, times(TopWindow.values().length)).countHits(any(), isNull());
+        verify(statsRollupRepository).findBuckets(eq(RollupUnit.MINUTE), any(), any());
+        verify(statsRollupRepository, times(2)).findBuckets(eq(RollupUnit.HOUR), any(), any());
+        assertEquals(List.of(List.of(20, 6L), List.of(10, 1L)), uriHits(tracker.getTop(TopWindow.DAY, 10)));
+        assertEquals(List.of(List.of(10, 10L), List.of(20, 6L)), uriHits(tracker.getTop(TopWindow.WEEK, 10)));
+        assertEquals(List.of(List.of(10, 1L)), uriHits(tracker.getTop(TopWindow.HOUR, 10)));
+    }
+
+    private TrendingTracker tracker(StatsRepository statsRepository, StatsRollupRepository statsRollupRepository,
+                                    boolean rollupEnabled) {
+        TrendingTracker tracker = new TrendingTracker(statsRepository, statsRollupRepository);
+        ReflectionTestUtils.setField(tracker, "enabled", true);
+        ReflectionTestUtils.setField(tracker, "rollupEnabled", rollupEnabled);
+        ReflectionTestUtils.setField(tracker, "capacity", 10);
+        return tracker;
+    }
+
+    private List<List<Object>> uriHits(List<HitCount> hits) {
+        return hits.stream()
+                .map(hit -> List.<Object>of(hit.getUriId(), hit.getHits()))
+                .collect(Collectors.toList());
+    }
+
+    private TrendingTracker.WindowSummary summary() {
+        return new TrendingTracker.WindowSummary(TopWindow.HOUR, 10, 0);
+    }
+
+    private List<List<Long>> counts(List<SpaceSaving.Counter> counters) {
+        return counters.stream()
+                .map(counter -> List.of(counter.getKey(), counter.getCount()))
+                .collect(Collectors.toList());
+    }
+
+    private Stats hit(int uriId, LocalDateTime timestamp) {
+        return new Stats(null, 1, uriId, new byte[]{10, 0, 0, 1}, timestamp);
+    }
+}
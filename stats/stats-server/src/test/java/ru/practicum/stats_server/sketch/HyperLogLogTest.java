@@ -0,0 +1,73 @@
+package ru.practicum.stats_server.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void smallSketchStaysSparseAndRoundTrips() {
+        HyperLogLog sketch = sketch(0, 100);
+
+        assertTrue(sketch.isSparse());
+        byte[] bytes = sketch.toBytes();
+        assertTrue(bytes.length <= 100 * 3);
+
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertTrue(restored.isSparse());
+        assertArrayEquals(bytes, restored.toBytes());
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertEquals(100, sketch.estimate(), 5);
+    }
+
+    @Test
+    void sparseAndDenseFormsGiveTheSameEstimate() {
+        HyperLogLog sparse = sketch(0, 400);
+        HyperLogLog dense = dense(sparse);
+
+        assertTrue(sparse.isSparse());
+        assertFalse(dense.isSparse());
+        assertEquals(sparse.estimate(), dense.estimate());
+    }
+
+    @Test
+    void sketchTurnsDenseAboveTheSparseLimit() {
+        HyperLogLog sketch = sketch(0, 10000);
+
+        assertFalse(sketch.isSparse());
+        assertEquals(HyperLogLog.REGISTERS, sketch.toBytes().length);
+        assertEquals(10000, sketch.estimate(), 10000 * 0.05);
+    }
+
+    @Test
+    void mergeOfSparseSketchesEqualsTheSketchOfTheUnion() {
+        HyperLogLog merged = sketch(0, 400).merge(sketch(200, 600));
+
+        assertArrayEquals(dense(sketch(0, 600)).toBytes(), dense(merged).toBytes());
+        assertArrayEquals(dense(sketch(0, 600)).toBytes(), dense(sketch(0, 600)).merge(sketch(100, 300)).toBytes());
+    }
+
+    @Test
+    void fromBytesRejectsUnknownSizesAndUnsortedEntries() {
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[5]));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[HyperLogLog.REGISTERS + 1]));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{0, 2, 1, 0, 1, 1}));
+    }
+
+    private HyperLogLog sketch(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add("10.0." + (i / 256) + "." + (i % 256));
+        }
+        return sketch;
+    }
+
+    private HyperLogLog dense(HyperLogLog sketch) {
+        return HyperLogLog.fromBytes(new byte[HyperLogLog.REGISTERS]).merge(sketch);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.stats_server.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void fullSummaryReplacesTheMinimumCounter() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add(1, 5);
+        summary.add(2, 3);
+        summary.add(3, 1);
+
+        List<SpaceSaving.Counter> top = summary.top(3);
+
+        assertEquals(List.of(1L, 3L), keys(top));
+        assertEquals(5, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+        assertEquals(4, top.get(1).getCount());
+        assertEquals(3, top.get(1).getError());
+    }
+
+    @Test
+    void countersStayWithinTheErrorBound() {
+        int capacity = 50;
+        SpaceSaving summary = new SpaceSaving(capacity);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+
+        int total = 20000;
+        for (int i = 0; i < total; i++) {
+            // Skewed stream: low keys are much more frequent than high ones
+            long key = (long) Math.floor(Math.pow(random.nextDouble(), 3) * 500);
+            summary.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.Counter> counters = summary.top(capacity);
+        assertEquals(capacity, counters.size());
+        for (SpaceSaving.Counter counter : counters) {
+            long count = exact.get(counter.getKey());
+            assertTrue(counter.getCount() - counter.getError() <= count, "key " + counter.getKey());
+            assertTrue(count <= counter.getCount(), "key " + counter.getKey());
+            assertTrue(counter.getError() <= total / capacity, "key " + counter.getKey());
+        }
+
+        List<Long> keys = keys(counters);
+        exact.forEach((key, count) -> {
+            if (count > total / capacity) {
+                assertTrue(keys.contains(key), "heavy hitter " + key);
+            }
+        });
+    }
+
+    @Test
+    void mergeSumsCountersAcrossSummaries() {
+        SpaceSaving first = new SpaceSaving(2);
+        first.add(1, 4);
+        first.add(3, 1);
+        first.add(2, 3);
+        SpaceSaving second = new SpaceSaving(2);
+        second.add(2, 1);
+        second.add(4, 6);
+
+        List<SpaceSaving.Counter> merged = SpaceSaving.merge(List.of(first, second), 2);
+
+        assertEquals(List.of(4L, 2L), keys(merged));
+        assertEquals(6, merged.get(0).getCount());
+        assertEquals(0, merged.get(0).getError());
+        assertEquals(5, merged.get(1).getCount());
+        assertEquals(1, merged.get(1).getError());
+        assertEquals(List.of(4L, 2L, 1L), keys(SpaceSaving.merge(List.of(first, second), 10)));
+    }
+
+    private List<Long> keys(List<SpaceSaving.Counter> counters) {
+        return counters.stream()
+                .map(SpaceSaving.Counter::getKey)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,195 @@
+package ru.practicum.stats_server.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats_server.model.HitLogPosition;
+import ru.practicum.stats_server.model.Stats;
+import ru.practicum.stats_server.repository.StatsWalPositionRepository;
+import ru.practicum.stats_server.service.StatsServiceImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HitLogTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+
+    @TempDir
+    Path dir;
+
+    private final AtomicReference<HitLogPosition> position = new AtomicReference<>();
+
+    @Test
+    void restartReplaysOnlyUndrainedHitsWithTheirIds() {
+        HitLog hitLog = hitLog();
+        hitLog.append(List.of(hit(10, 1), hit(10, 2), hit(20, 3), hit(10, 4), hit(20, 5)));
+
+        StatsServiceImpl failing = mock(StatsServiceImpl.class);
+        List<Stats> stored = new ArrayList<>();
+        doAnswer(invocation -> stored.addAll(invocation.getArgument(0)))
+                .doThrow(new IllegalStateException("Database is down"))
+                .when(failing).saveStats(anyList());
+        drainer(hitLog, failing).drain();
+        assertEquals(2, stored.size());
+
+        List<Stats> replayed = replayAfterRestart();
+
+        assertEquals(Map.of(10, 1L, 20, 2L), replayed.stream()
+                .collect(Collectors.groupingBy(Stats::getUriId, Collectors.counting())));
+        for (int i = 0; i < replayed.size(); i++) {
+            Stats hit = replayed.get(i);
+            assertEquals(1, hit.getAppId());
+            assertArrayEquals(new byte[]{10, 0, 0, (byte) (i + 3)}, hit.getIp());
+            assertEquals(TIME.plusSeconds(i + 3), hit.getTimestamp());
+        }
+
+        assertTrue(replayAfterRestart().isEmpty());
+    }
+
+    @Test
+    void batchCommittedBeforeACrashIsNotReplayed() {
+        HitLog hitLog = hitLog();
+        hitLog.append(List.of(hit(10, 1), hit(10, 2), hit(20, 3), hit(10, 4), hit(20, 5)));
+
+        StatsServiceImpl statsService = mock(StatsServiceImpl.class);
+        List<Stats> stored = new ArrayList<>();
+        doAnswer(invocation -> stored.addAll(invocation.getArgument(0)))
+                .when(statsService).saveStats(anyList());
+        // The database commits, but the acknowledgement is lost, so the log is not marked drained
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        doThrow(new TransactionSystemException("Connection reset")).when(transactionManager).commit(any());
+        drainer(hitLog, statsService, transactionManager).drain();
+        assertEquals(2, stored.size());
+        assertEquals(new HitLogPosition(1, 2), position.get());
+
+        List<Stats> replayed = replayAfterRestart();
+
+        assertEquals(List.of(TIME.plusSeconds(3), TIME.plusSeconds(4), TIME.plusSeconds(5)), replayed.stream()
+                .map(Stats::getTimestamp)
+                .collect(Collectors.toList()));
+        assertEquals(new HitLogPosition(2, 2), position.get());
+    }
+
+    @Test
+    void batchRejectedOnEveryAttemptIsQuarantined() throws Exception {
+        HitLog hitLog = hitLog();
+        hitLog.append(List.of(hit(10, 1), hit(99, 2), hit(20, 3)));
+
+        StatsServiceImpl statsService = mock(StatsServiceImpl.class);
+        List<Stats> stored = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<Stats> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(hit -> hit.getUriId() == 99)) {
+                throw new DataIntegrityViolationException("Rejected");
+            }
+            return stored.addAll(batch);
+        }).when(statsService).saveStats(anyList());
+        HitLogDrainer drainer = drainer(hitLog, statsService, mock(PlatformTransactionManager.class));
+
+        drainer.drain();
+        drainer.drain();
+        assertTrue(stored.isEmpty());
+        assertTrue(quarantined().isEmpty());
+
+        drainer.drain();
+        assertEquals(List.of(TIME.plusSeconds(3)), stored.stream()
+                .map(Stats::getTimestamp)
+                .collect(Collectors.toList()));
+        assertEquals(new HitLogPosition(1, 3), position.get());
+
+        List<Path> files = quarantined();
+        assertEquals(1, files.size());
+        assertEquals("quarantine-00000000000000000001-0000000000.log", files.get(0).getFileName().toString());
+        assertEquals(List.of(10, 99), HitLogSegment.recover(files.get(0), 1).read(0, 2).stream()
+                .map(Stats::getUriId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void unreachableDatabaseIsRetriedWithoutQuarantine() throws Exception {
+        HitLog hitLog = hitLog();
+        hitLog.append(List.of(hit(10, 1)));
+
+        StatsServiceImpl statsService = mock(StatsServiceImpl.class);
+        doThrow(new CannotCreateTransactionException("Database is down"))
+                .when(statsService).saveStats(anyList());
+        HitLogDrainer drainer = drainer(hitLog, statsService, mock(PlatformTransactionManager.class));
+        for (int i = 0; i < 5; i++) {
+            drainer.drain();
+        }
+
+        assertTrue(quarantined().isEmpty());
+        assertEquals(1, replayAfterRestart().size());
+    }
+
+    private List<Stats> replayAfterRestart() {
+        StatsServiceImpl statsService = mock(StatsServiceImpl.class);
+        List<Stats> replayed = new ArrayList<>();
+        doAnswer(invocation -> replayed.addAll(invocation.getArgument(0)))
+                .when(statsService).saveStats(anyList());
+        drainer(hitLog(), statsService).replay();
+        return replayed;
+    }
+
+    private List<Path> quarantined() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("quarantine-"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private HitLog hitLog() {
+        HitLog hitLog = new HitLog();
+        ReflectionTestUtils.setField(hitLog, "dir", dir.toString());
+        ReflectionTestUtils.setField(hitLog, "segmentRecords", 3);
+        hitLog.recover();
+        return hitLog;
+    }
+
+    private HitLogDrainer drainer(HitLog hitLog, StatsServiceImpl statsService) {
+        return drainer(hitLog, statsService, mock(PlatformTransactionManager.class));
+    }
+
+    private HitLogDrainer drainer(HitLog hitLog, StatsServiceImpl statsService,
+                                  PlatformTransactionManager transactionManager) {
+        StatsWalPositionRepository statsWalPositionRepository = mock(StatsWalPositionRepository.class);
+        when(statsWalPositionRepository.find()).thenAnswer(invocation -> Optional.ofNullable(position.get()));
+        doAnswer(invocation -> {
+            position.set(invocation.getArgument(0));
+            return null;
+        }).when(statsWalPositionRepository).save(any());
+
+        HitLogDrainer drainer = new HitLogDrainer(hitLog, statsService, statsWalPositionRepository,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(drainer, "batchSize", 2);
+        ReflectionTestUtils.setField(drainer, "maxAttempts", 3);
+        return drainer;
+    }
+
+    private Stats hit(int uriId, int host) {
+        return new Stats(null, 1, uriId, new byte[]{10, 0, 0, (byte) host}, TIME.plusSeconds(host));
+    }
+}